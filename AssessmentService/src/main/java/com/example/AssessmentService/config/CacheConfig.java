@@ -0,0 +1,88 @@
+package com.example.AssessmentService.config;
+
+import com.example.AssessmentService.dto.QuestionSetPayload;
+import com.example.AssessmentService.model.Question;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.Collection;
+
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    public static final String QUESTIONS_BY_SET_ID = "questionsBySetId";
+    public static final String QUESTIONS_BY_SET_NAME = "questionsBySetName";
+    public static final String QUESTION_PAYLOADS_BY_SET_ID = "questionPayloadsBySetId";
+    public static final String CACHE_GENERATIONS = "cacheGenerations";
+
+    @Value("${assessment.cache.max-weight:200000}")
+    private long maxWeight;
+
+    @Value("${assessment.cache.ttl:PT10M}")
+    private Duration ttl;
+
+    @Value("${assessment.cache.payload-max-bytes:67108864}")
+    private long payloadMaxBytes;
+
+    // Puts and evictions are both deferred until the surrounding transaction commits. That alone doesn't stop a reader
+    // that loaded the old rows from putting them back after a writer's eviction; the generation in the keys does
+    @Bean
+    public CacheManager cacheManager() {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        cacheManager.registerCustomCache(QUESTIONS_BY_SET_ID, questionSetCache());
+        cacheManager.registerCustomCache(QUESTIONS_BY_SET_NAME, questionSetCache());
+        cacheManager.registerCustomCache(QUESTION_PAYLOADS_BY_SET_ID, payloadCache());
+        return new TransactionAwareCacheManagerProxy(cacheManager);
+    }
+
+    @Bean(CACHE_GENERATIONS)
+    public CacheGenerations cacheGenerations() {
+        return new CacheGenerations();
+    }
+
+    private Cache<Object, Object> questionSetCache() {
+        return Caffeine.newBuilder()
+                .maximumWeight(maxWeight)
+                .weigher(CacheConfig::weigh)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+    }
+
+    private Cache<Object, Object> payloadCache() {
+        return Caffeine.newBuilder()
+                .maximumWeight(payloadMaxBytes)
+                .weigher((Object key, Object value) -> value instanceof QuestionSetPayload payload ? payloadBytes(payload) : 1)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+    }
+
+    static int payloadBytes(QuestionSetPayload payload) {
+        return payload.getJson().length + (payload.getGzip() == null ? 0 : payload.getGzip().length);
+    }
+
+    // A set weighs one unit per question and per answer, so a few huge sets can't crowd out the rest unnoticed
+    static int weigh(Object key, Object value) {
+        if (!(value instanceof Collection<?> questions)) {
+            return 1;
+        }
+        int weight = 1;
+        for (Object element : questions) {
+            weight++;
+            if (element instanceof Question question && question.getAnswers() != null) {
+                weight += question.getAnswers().size();
+            }
+        }
+        return weight;
+    }
+}
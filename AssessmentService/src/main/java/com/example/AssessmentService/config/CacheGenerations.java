@@ -0,0 +1,40 @@
+package com.example.AssessmentService.config;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Question-set cache keys carry a generation. A write moves the generation on once its transaction has committed,
+// so a reader that loaded the old rows before the commit stores them under a key no later read asks for.
+// Keys share a fixed number of counters; two keys on the same counter only cost each other a cache miss
+public class CacheGenerations {
+
+    private static final int COUNTERS = 1024;
+
+    private final AtomicLongArray generations = new AtomicLongArray(COUNTERS);
+
+    public String key(Object key) {
+        return key + "@" + generations.get(counter(key));
+    }
+
+    public void advanceAfterCommit(Object key) {
+        if (key == null) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            generations.incrementAndGet(counter(key));
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                generations.incrementAndGet(counter(key));
+            }
+        });
+    }
+
+    private static int counter(Object key) {
+        return Math.floorMod(key.hashCode(), COUNTERS);
+    }
+}
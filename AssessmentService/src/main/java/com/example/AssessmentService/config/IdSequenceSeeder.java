@@ -0,0 +1,46 @@
+package com.example.AssessmentService.config;
+
+import com.example.AssessmentService.model.IdSequences;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+// Moves each id sequence past the ids already handed out by the former AUTO_INCREMENT columns, before any request is served
+// survey-api keeps its own copy: the services are separate builds with no shared module
+@Component
+public class IdSequenceSeeder implements SmartInitializingSingleton {
+
+    private static final Map<String, String> MAX_ID_QUERIES = Map.of(
+            IdSequences.ASSESSMENT, "select coalesce(max(setid), 0) from assessment",
+            IdSequences.QUESTION, "select coalesce(max(question_id), 0) from question",
+            IdSequences.ANSWER, "select coalesce(max(answer_id), 0) from options");
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        MAX_ID_QUERIES.forEach(this::seed);
+    }
+
+    void seed(String segment, String maxIdQuery) {
+        long next = jdbcTemplate.queryForObject(maxIdQuery, Long.class) + 1;
+        Integer rows = jdbcTemplate.queryForObject(
+                "select count(*) from " + IdSequences.TABLE + " where " + IdSequences.NAME_COLUMN + " = ?", Integer.class, segment);
+        if (rows == null || rows == 0) {
+            try {
+                jdbcTemplate.update("insert into " + IdSequences.TABLE + " (" + IdSequences.NAME_COLUMN + ", "
+                        + IdSequences.VALUE_COLUMN + ") values (?, ?)", segment, next);
+                return;
+            } catch (DuplicateKeyException e) {
+                // Another instance created the row first; fall through and raise it if needed
+            }
+        }
+        jdbcTemplate.update("update " + IdSequences.TABLE + " set " + IdSequences.VALUE_COLUMN + " = ? where "
+                + IdSequences.NAME_COLUMN + " = ? and " + IdSequences.VALUE_COLUMN + " < ?", next, segment, next);
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.AssessmentService.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.pool.HikariPool;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Hands out connections only while a permit is free; the permit goes back when the connection is closed.
+// Waiting here parks a virtual thread without touching the pool, so the pool never has more borrowers than connections.
+// The permit wait and the pool wait share one timeout
+public class PermitDataSource extends DelegatingDataSource {
+
+    private final Semaphore permits;
+
+    private final long timeoutMillis;
+
+    public PermitDataSource(DataSource target, int permits, long timeoutMillis) {
+        super(target);
+        this.permits = new Semaphore(permits, true);
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return connect(this::borrow);
+    }
+
+    // The target takes no per-call timeout with credentials, so only the permit wait is bounded here
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return connect(remainingMillis -> super.getConnection(username, password));
+    }
+
+    public int availablePermits() {
+        return permits.availablePermits();
+    }
+
+    public int waiting() {
+        return permits.getQueueLength();
+    }
+
+    // Both overloads take their permit here, against the same deadline
+    private Connection connect(Borrow borrow) throws SQLException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        acquire();
+        try {
+            return permitted(borrow.connection(TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime())));
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    // HikariCP only takes a per-call timeout on its pool, which exists once the data source has been started
+    private Connection borrow(long remainingMillis) throws SQLException {
+        if (getTargetDataSource() instanceof HikariDataSource hikari && hikari.getHikariPoolMXBean() instanceof HikariPool pool) {
+            return pool.getConnection(Math.max(remainingMillis, 0));
+        }
+        return super.getConnection();
+    }
+
+    private void acquire() throws SQLException {
+        try {
+            if (!permits.tryAcquire(timeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw new SQLTransientConnectionException("No database connection free after " + timeoutMillis + "ms");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLTransientConnectionException("Interrupted while waiting for a database connection", e);
+        }
+    }
+
+    private Connection permitted(Connection connection) {
+        AtomicBoolean released = new AtomicBoolean();
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "equals" -> proxy == args[0];
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "close" -> {
+                        try {
+                            yield invoke(connection, method, args);
+                        } finally {
+                            // A second close must not hand out an extra permit
+                            if (released.compareAndSet(false, true)) {
+                                permits.release();
+                            }
+                        }
+                    }
+                    default -> invoke(connection, method, args);
+                });
+    }
+
+    private static Object invoke(Connection connection, java.lang.reflect.Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(connection, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+
+    @FunctionalInterface
+    private interface Borrow {
+        Connection connection(long remainingMillis) throws SQLException;
+    }
+}
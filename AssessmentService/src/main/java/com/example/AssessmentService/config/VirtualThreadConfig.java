@@ -0,0 +1,38 @@
+package com.example.AssessmentService.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.util.StringUtils;
+
+// With spring.threads.virtual.enabled=true Spring Boot runs Tomcat requests, and with them the @Transactional
+// service calls, on virtual threads. Threads then no longer cap how many requests reach the database at once,
+// so connections go through a semaphore with one permit per HikariCP connection
+@Configuration
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class VirtualThreadConfig {
+
+    // Built the way Spring Boot builds it, and still bound to spring.datasource.hikari; declared here because
+    // Boot backs off its own pool once another DataSource bean exists
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource hikariDataSource(DataSourceProperties properties) {
+        HikariDataSource hikari = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        if (StringUtils.hasText(properties.getName())) {
+            hikari.setPoolName(properties.getName());
+        }
+        return hikari;
+    }
+
+    // What JPA, JdbcTemplate and the rest inject; the pool stays available as a HikariDataSource
+    @Bean
+    @Primary
+    public PermitDataSource permitDataSource(HikariDataSource hikariDataSource) {
+        return new PermitDataSource(hikariDataSource, hikariDataSource.getMaximumPoolSize(), hikariDataSource.getConnectionTimeout());
+    }
+}
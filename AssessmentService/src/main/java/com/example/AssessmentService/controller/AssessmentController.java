@@ -7,13 +7,20 @@ import com.example.AssessmentService.dto.*;
 import com.example.AssessmentService.model.Question;
 import com.example.AssessmentService.service.AssessmentService;
 import io.swagger.v3.oas.annotations.Hidden;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.WebAsyncTask;
 
+import java.time.Duration;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
 
@@ -22,15 +29,40 @@ import java.util.Optional;
 @CrossOrigin(origins = "http://localhost:3000")
 public class AssessmentController {
 
+    private static final String NDJSON = "application/x-ndjson";
+
     @Autowired
     private AssessmentService assessmentService;
 
+    @Value("${assessment.export.timeout:PT1H}")
+    private Duration exportTimeout;
+
     @GetMapping
     public ResponseEntity<List<Assessment>> getAllAssessments() {
         List<Assessment> assessments = assessmentService.getAllAssessments();
         return ResponseEntity.ok(assessments);
     }
 
+    // GET /assessments?size=20[&after=..][&domain=..]. A query on the collection rather than a path of its own, which
+    // /{setName} would take from a set of that name
+    @GetMapping(params = "size")
+    public ResponseEntity<AssessmentPage> getAssessmentPage(@RequestParam(value = "after", required = false) Long after,
+                                                            @RequestParam(value = "domain", required = false) String domain,
+                                                            @RequestParam("size") int size) {
+        return ResponseEntity.ok(assessmentService.getAssessmentPage(after, domain, size));
+    }
+
+    // GET /assessments?format=ndjson, for the same reason as the page above. The dump runs as its own async task
+    // with export-timeout, so every other async request keeps the default timeout
+    @GetMapping(params = "format=ndjson", produces = NDJSON)
+    public WebAsyncTask<Void> exportCatalog(HttpServletResponse response) {
+        response.setContentType(NDJSON);
+        return new WebAsyncTask<>(exportTimeout.toMillis(), () -> {
+            assessmentService.exportCatalog(response.getOutputStream());
+            return null;
+        });
+    }
+
     @PostMapping
     public ResponseEntity<?> createAssessment(@RequestBody
                                                   AssessmentDTO assessmentRequest) throws DataIntegrityViolationException {
@@ -46,10 +78,26 @@ public class AssessmentController {
         return ResponseEntity.ok(questionList);
     }
 
-    @GetMapping("/set-id/{setid}")
-    public ResponseEntity<List<Question>> getQuestionsBySetid(@PathVariable("setid") long setid) {
-        List<Question> questionList= assessmentService.getQuestionsSetId(setid);
-        return ResponseEntity.ok(questionList);
+    // Writes the pre-encoded payload, gzip-compressed when the client accepts it. A missing set goes to the
+    // ResourceNotFoundException handler like on every other route
+    @GetMapping(value = "/set-id/{setid}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<byte[]> getQuestionsBySetid(@PathVariable("setid") long setid,
+                                                      @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        QuestionSetPayload payload = assessmentService.getQuestionsSetIdPayload(setid);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (payload.getGzip() != null && acceptsGzip(acceptEncoding)) {
+            return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(payload.getGzip());
+        }
+        return response.body(payload.getJson());
+    }
+
+    // GET /assessments?ids=1,2,.. on the collection, so no set name is shadowed. Sets that don't exist are left out
+    // of the map
+    @GetMapping(params = "ids")
+    public ResponseEntity<Map<Long, List<Question>>> getQuestionsBySetids(@RequestParam("ids") List<Long> setids) {
+        return ResponseEntity.ok(assessmentService.getQuestionsSetIds(setids));
     }
 
     @PutMapping("/{setid}/question/{questionId}")
@@ -62,6 +110,28 @@ public class AssessmentController {
 
 
 
+    // Body maps questionId to the answers to append; the response reports the outcome per question
+    @PostMapping("/{setid}/answers")
+    public ResponseEntity<Map<Long, String>> addAnswers(@PathVariable("setid") long setid,
+                                                        @RequestBody Map<Long, List<AnswerDTO>> answers) {
+        return ResponseEntity.ok(assessmentService.addAnswers(setid, answers));
+    }
+
+    @PostMapping("/{setid}/questions")
+    public ResponseEntity<Question> insertQuestion(@PathVariable("setid") long setid,
+                                                   @RequestParam(value = "index", required = false) Integer index,
+                                                   @RequestBody QuestionRequest question) {
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .body(assessmentService.insertQuestion(setid, question, index));
+    }
+
+    @PutMapping("/{setid}/questions/{questionId}/position")
+    public ResponseEntity<Map<String, String>> moveQuestion(@PathVariable("setid") long setid,
+                                                            @PathVariable("questionId") Long questionId,
+                                                            @RequestParam("index") int index) {
+        return ResponseEntity.ok(assessmentService.moveQuestion(setid, questionId, index));
+    }
+
     @DeleteMapping("/{setid}/questions/{questionId}")
     public ResponseEntity<Map<String, String>> deleteQuestion(@PathVariable("setid") long setid,
                                                               @PathVariable("questionId") Long questionId) {
@@ -80,6 +150,37 @@ public class AssessmentController {
 
 
 
+    // gzip (or x-gzip, or *) listed with a q-value above zero; an explicit gzip entry overrides *
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        Double gzip = null;
+        Double any = null;
+        for (String element : acceptEncoding.split(",")) {
+            String[] parts = element.split(";");
+            String coding = parts[0].trim().toLowerCase(Locale.ROOT);
+            double q = 1;
+            for (int i = 1; i < parts.length; i++) {
+                String param = parts[i].trim().toLowerCase(Locale.ROOT);
+                if (param.startsWith("q=")) {
+                    try {
+                        q = Double.parseDouble(param.substring(2).trim());
+                    } catch (NumberFormatException e) {
+                        q = 0;
+                    }
+                }
+            }
+            if (coding.equals("gzip") || coding.equals("x-gzip")) {
+                gzip = gzip == null ? q : Math.max(gzip, q);
+            } else if (coding.equals("*")) {
+                any = q;
+            }
+        }
+        double q = gzip != null ? gzip : any != null ? any : 0;
+        return q > 0;
+    }
+
     @ExceptionHandler(ResourceNotFoundException.class)
     public ResponseEntity<String> handleResourceNotFoundException(
             ResourceNotFoundException exception) {
@@ -87,6 +188,13 @@ public class AssessmentController {
     }
 
 
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> handleIllegalArgumentException(
+            IllegalArgumentException exception) {
+        return ResponseEntity.badRequest().body(exception.getMessage());
+    }
+
+
     @ExceptionHandler(DataIntegrityViolationException.class)
     public ResponseEntity<String> handleDataIntegrityException(
             DataIntegrityViolationException exception) {
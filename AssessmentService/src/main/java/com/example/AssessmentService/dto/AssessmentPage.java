@@ -0,0 +1,17 @@
+package com.example.AssessmentService.dto;
+
+import com.example.AssessmentService.model.Assessment;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class AssessmentPage {
+    private List<Assessment> assessments;
+    // setid to pass as "after" for the next page, null on the last page
+    private Long nextCursor;
+}
@@ -0,0 +1,12 @@
+package com.example.AssessmentService.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+// Encoded response body of GET /assessments/set-id/{setid}; gzip is null when compression is disabled
+@Getter
+@AllArgsConstructor
+public class QuestionSetPayload {
+    private final byte[] json;
+    private final byte[] gzip;
+}
@@ -11,7 +11,10 @@ import jakarta.persistence.*;
 public class Answer {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "answer_ids")
+    @TableGenerator(name = "answer_ids", table = IdSequences.TABLE, pkColumnName = IdSequences.NAME_COLUMN,
+            valueColumnName = IdSequences.VALUE_COLUMN, pkColumnValue = IdSequences.ANSWER,
+            allocationSize = IdSequences.ALLOCATION_SIZE)
     @Column(name = "answer_id")
     private Long answerId;
 
@@ -11,10 +11,20 @@ import java.util.List;
 
 @Data
 @Entity
+@Table(indexes = @Index(name = "idx_assessment_domain_setid", columnList = "domain, setid"))
+@NamedEntityGraph(
+        name = Assessment.WITH_QUESTIONS, // Loads the sets together with their questions in one join
+        attributeNodes = @NamedAttributeNode("questions")
+)
 public class Assessment {
 
+    public static final String WITH_QUESTIONS = "Assessment.withQuestions";
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "assessment_ids")
+    @TableGenerator(name = "assessment_ids", table = IdSequences.TABLE, pkColumnName = IdSequences.NAME_COLUMN,
+            valueColumnName = IdSequences.VALUE_COLUMN, pkColumnValue = IdSequences.ASSESSMENT,
+            allocationSize = IdSequences.ALLOCATION_SIZE)
     @Column(name = "setid")
     private Long setid;
 
@@ -27,7 +37,9 @@ public class Assessment {
     @JoinTable(
             name = "set_question_map", // Name of the join table
             joinColumns = @JoinColumn(name = "set_id"), // Foreign key for the Assessment entity
-            inverseJoinColumns = @JoinColumn(name = "question_id") // Foreign key for the Question entity
+            inverseJoinColumns = @JoinColumn(name = "question_id"), // Foreign key for the Question entity
+            indexes = @Index(name = "idx_set_question_map_set_question", columnList = "set_id, question_id")
     )
+    @OrderBy("position ASC, questionId ASC")
     private List<Question> questions;
 }
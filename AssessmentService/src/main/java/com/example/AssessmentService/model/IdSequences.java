@@ -0,0 +1,17 @@
+package com.example.AssessmentService.model;
+
+// Table-backed id generation shared with survey-api: each entity draws blocks of ALLOCATION_SIZE ids from its own row
+public final class IdSequences {
+
+    public static final String TABLE = "id_sequences";
+    public static final String NAME_COLUMN = "sequence_name";
+    public static final String VALUE_COLUMN = "next_val";
+    public static final int ALLOCATION_SIZE = 50;
+
+    public static final String ASSESSMENT = "assessment";
+    public static final String QUESTION = "question";
+    public static final String ANSWER = "answer";
+
+    private IdSequences() {
+    }
+}
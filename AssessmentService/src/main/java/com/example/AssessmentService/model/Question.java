@@ -1,8 +1,11 @@
 package com.example.AssessmentService.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.Data;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Fetch;
+import org.hibernate.annotations.FetchMode;
 import java.util.List;
 
 @Data
@@ -10,8 +13,14 @@ import java.util.List;
 @Table(name = "question")
 public class Question {
 
+    // Positions are spaced out so a question can be inserted or moved between two others with one row update
+    public static final long POSITION_STEP = 1024L;
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "question_ids")
+    @TableGenerator(name = "question_ids", table = IdSequences.TABLE, pkColumnName = IdSequences.NAME_COLUMN,
+            valueColumnName = IdSequences.VALUE_COLUMN, pkColumnValue = IdSequences.QUESTION,
+            allocationSize = IdSequences.ALLOCATION_SIZE)
     @Column(name = "question_id")
     private long questionId;
 
@@ -20,6 +29,13 @@ public class Question {
     @Column(name = "description")
     private String description;
 
+    // Sort key within the owning set; the list order is what clients see
+    @Column(name = "position")
+    @JsonIgnore
+    private Long position;
+
+    // Answers of every question loaded by the same query are fetched in a single subselect
     @OneToMany(mappedBy = "question", cascade = CascadeType.ALL)
+    @Fetch(FetchMode.SUBSELECT)
     private List<Answer> answers;
 }
\ No newline at end of file
@@ -1,13 +1,38 @@
 package com.example.AssessmentService.repo;
 
 import com.example.AssessmentService.model.Assessment;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface AssessmentRepository extends JpaRepository<Assessment, Long> {
+
+    // Full catalog read: one query for sets and questions, one subselect for all answers
+    @Override
+    @EntityGraph(Assessment.WITH_QUESTIONS)
+    List<Assessment> findAll();
+
+    @EntityGraph(Assessment.WITH_QUESTIONS)
     Optional<Assessment> findBySetName(String setName);
+
+    @EntityGraph(Assessment.WITH_QUESTIONS)
     Optional<Assessment> findBySetid(long setid);
 
+    // Keyset paging: select the ids of one page first, the limit never applies to a collection fetch
+    @Query("select a.setid from Assessment a where a.setid > :after order by a.setid")
+    List<Long> findSetidPage(@Param("after") long after, Limit limit);
+
+    @Query("select a.setid from Assessment a where a.domain = :domain and a.setid > :after order by a.setid")
+    List<Long> findSetidPageByDomain(@Param("after") long after, @Param("domain") String domain, Limit limit);
+
+    @EntityGraph(Assessment.WITH_QUESTIONS)
+    List<Assessment> findBySetidInOrderBySetid(Collection<Long> setids);
+
 
-}
\ No newline at end of file
+}
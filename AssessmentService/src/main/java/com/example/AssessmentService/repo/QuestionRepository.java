@@ -2,10 +2,41 @@ package com.example.AssessmentService.repo;
 
 import com.example.AssessmentService.model.Question;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 public interface QuestionRepository extends JpaRepository<Question, Long> {
    Optional<Question> findByQuestionId(Long questionId);
+
+   // Membership check through set_question_map, without loading the set's questions
+   @Query("select count(q) > 0 from Assessment a join a.questions q where a.setid = :setid and q.questionId = :questionId")
+   boolean existsInSet(@Param("setid") long setid, @Param("questionId") long questionId);
+
+   @Query("select q.questionId from Assessment a join a.questions q where a.setid = :setid and q.questionId in :questionIds")
+   List<Long> findIdsInSet(@Param("setid") long setid, @Param("questionIds") Collection<Long> questionIds);
+
+   @Modifying
+   @Query(value = "delete from set_question_map where set_id = :setid and question_id = :questionId", nativeQuery = true)
+   int unlinkFromSet(@Param("setid") long setid, @Param("questionId") long questionId);
+
+   @Query("select q.questionId as questionId, q.position as position from Assessment a join a.questions q " +
+           "where a.setid = :setid order by q.position, q.questionId")
+   List<QuestionSlot> findSlotsInSet(@Param("setid") long setid);
+
+   @Modifying
+   @Query(value = "insert into set_question_map (set_id, question_id) values (:setid, :questionId)", nativeQuery = true)
+   int linkToSet(@Param("setid") long setid, @Param("questionId") long questionId);
+
+   @Modifying
+   @Query("update Question q set q.position = :position where q.questionId = :questionId")
+   int updatePosition(@Param("questionId") long questionId, @Param("position") long position);
+
+   @Modifying
+   @Query("delete from Question q where q.questionId = :questionId")
+   int deleteByQuestionId(@Param("questionId") long questionId);
 }
@@ -0,0 +1,8 @@
+package com.example.AssessmentService.repo;
+
+// Id and sort key of a question within its set, read without loading the question itself
+public interface QuestionSlot {
+    long getQuestionId();
+
+    Long getPosition();
+}
@@ -1,6 +1,8 @@
 package com.example.AssessmentService.service;
 
 
+import com.example.AssessmentService.config.CacheConfig;
+import com.example.AssessmentService.config.CacheGenerations;
 import com.example.AssessmentService.dto.*;
 import com.example.AssessmentService.exception.ResourceNotFoundException;
 import com.example.AssessmentService.model.Answer;
@@ -9,15 +11,30 @@ import com.example.AssessmentService.model.Question;
 import com.example.AssessmentService.repo.AnswerRepository;
 import com.example.AssessmentService.repo.AssessmentRepository;
 import com.example.AssessmentService.repo.QuestionRepository;
+import com.example.AssessmentService.repo.QuestionSlot;
 import com.example.AssessmentService.utils.AssessmentUtil;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Hibernate;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.time.LocalDateTime;
 import java.util.*;
 import java.util.stream.Collectors;
+import java.util.zip.GZIPOutputStream;
 
 @Service
 public class  AssessmentService {
@@ -35,13 +52,34 @@ public class  AssessmentService {
     @Autowired
     private AnswerRepository answerRepository;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private CacheGenerations cacheGenerations;
+
+    @Value("${assessment.cache.gzip:true}")
+    private boolean gzipPayloads;
+
     private final String setNameIsInvalid = "Set name is invalid";
     private final String questionIdIsInvalid = "Question id is invalid";
 
+    public static final int MAX_PAGE_SIZE = 100;
+    public static final int EXPORT_CHUNK_SIZE = 100;
+    public static final int MAX_BATCH_SET_IDS = 100;
+
     @Transactional
     public Assessment createAssessment(AssessmentDTO assessmentRequest) {
         Assessment assessment = assessmentUtil.MapToAssessment(assessmentRequest);
-        return assessmentRepository.save(assessment);
+        Assessment saved = assessmentRepository.save(assessment);
+        evictQuestionSet(saved.getSetid(), saved.getSetName());
+        return saved;
     }
 
 
@@ -49,48 +87,106 @@ public class  AssessmentService {
         return assessmentRepository.findAll();
     }
 
+    @Transactional(readOnly = true)
+    public AssessmentPage getAssessmentPage(Long after, String domain, int size) {
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        long cursor = after == null ? 0L : after;
+
+        List<Long> setids = (domain == null || domain.isBlank())
+                ? assessmentRepository.findSetidPage(cursor, Limit.of(pageSize))
+                : assessmentRepository.findSetidPageByDomain(cursor, domain, Limit.of(pageSize));
+        if (setids.isEmpty()) {
+            return new AssessmentPage(new ArrayList<>(), null);
+        }
+
+        List<Assessment> assessments = assessmentRepository.findBySetidInOrderBySetid(setids);
+        Long nextCursor = setids.size() == pageSize ? setids.get(setids.size() - 1) : null;
+        return new AssessmentPage(assessments, nextCursor);
+    }
+
+    // Writes every set as one JSON line; only one chunk of sets is attached to the session at a time
+    @Transactional(readOnly = true)
+    public long exportCatalog(OutputStream out) throws IOException {
+        long exported = 0;
+        long cursor = 0L;
+        while (true) {
+            List<Long> setids = assessmentRepository.findSetidPage(cursor, Limit.of(EXPORT_CHUNK_SIZE));
+            if (setids.isEmpty()) {
+                break;
+            }
+            for (Assessment assessment : assessmentRepository.findBySetidInOrderBySetid(setids)) {
+                out.write(objectMapper.writeValueAsBytes(assessment));
+                out.write('\n');
+                exported++;
+            }
+            out.flush();
+            entityManager.clear();
+            cursor = setids.get(setids.size() - 1);
+        }
+        return exported;
+    }
+
     @Transactional
     public String updateQuestion(Long setId, Long questionId, List<AnswerDTO> answerDtos) {
-        // Fetch the assessment by ID
+        // Only the set row is read, its questions stay unloaded
         Assessment assessment = assessmentRepository.findById(setId)
                 .orElseThrow(() -> new ResourceNotFoundException(setNameIsInvalid));
 
-        // Find the question by question ID within the assessment
-        Question questionToUpdate = assessment.getQuestions().stream()
-                .filter(q -> q.getQuestionId()==questionId)
-                .findFirst()
-                .orElseThrow(() -> new ResourceNotFoundException(questionIdIsInvalid));
+        if (!questionRepository.existsInSet(setId, questionId)) {
+            throw new ResourceNotFoundException(questionIdIsInvalid);
+        }
 
-        // Add answers if provided
+        // Append the new answers without loading the existing ones
         if (answerDtos != null && !answerDtos.isEmpty()) {
+            Question questionToUpdate = questionRepository.getReferenceById(questionId);
             List<Answer> answers = answerDtos.stream()
-                    .map(answerDto -> {
-                        Answer answer = new Answer();
-                        answer.setValue(answerDto.getValue());
-                        answer.setSuggestion(answerDto.getSuggestion());
-                        answer.setQuestion(questionToUpdate);
-                        return answer;
-                    })
+                    .map(answerDto -> toAnswer(answerDto, questionToUpdate))
                     .collect(Collectors.toList());
+            answerRepository.saveAll(answers);
+        }
 
-            // Ensure the existing answers list is initialized
-            List<Answer> existingAnswers = questionToUpdate.getAnswers();
-            if (existingAnswers == null) {
-                existingAnswers = new ArrayList<>();
-            }
+        evictQuestionSet(setId, assessment.getSetName());
+        return "Question updated successfully";
+    }
 
-            // Append the new answers to the existing ones
-            existingAnswers.addAll(answers);
-            questionToUpdate.setAnswers(existingAnswers);
-        }
 
-        // Save the updated assessment and question
-        assessmentRepository.save(assessment);
-        questionRepository.save(questionToUpdate);
+    // Appends answers to many questions of one set; membership is checked with a single query and all rows are inserted in one flush
+    @Transactional
+    public Map<Long, String> addAnswers(long setid, Map<Long, List<AnswerDTO>> answersByQuestion) {
+        Assessment assessment = assessmentRepository.findById(setid)
+                .orElseThrow(() -> new ResourceNotFoundException(setNameIsInvalid));
+
+        Set<Long> members = answersByQuestion.isEmpty()
+                ? Collections.emptySet()
+                : new HashSet<>(questionRepository.findIdsInSet(setid, answersByQuestion.keySet()));
 
-        return "Question updated successfully";
+        Map<Long, String> results = new LinkedHashMap<>();
+        List<Answer> answers = new ArrayList<>();
+        answersByQuestion.forEach((questionId, answerDtos) -> {
+            if (!members.contains(questionId)) {
+                results.put(questionId, questionIdIsInvalid);
+                return;
+            }
+            Question question = questionRepository.getReferenceById(questionId);
+            List<AnswerDTO> dtos = answerDtos == null ? Collections.emptyList() : answerDtos;
+            dtos.forEach(answerDto -> answers.add(toAnswer(answerDto, question)));
+            results.put(questionId, dtos.size() + " answers added");
+        });
+
+        if (!answers.isEmpty()) {
+            answerRepository.saveAll(answers);
+            evictQuestionSet(setid, assessment.getSetName());
+        }
+        return results;
     }
 
+    private static Answer toAnswer(AnswerDTO answerDto, Question question) {
+        Answer answer = new Answer();
+        answer.setValue(answerDto.getValue());
+        answer.setSuggestion(answerDto.getSuggestion());
+        answer.setQuestion(question);
+        return answer;
+    }
 
     @Transactional
     public Map<String, String> deleteQuestion(long setid, Long questionId) {
@@ -103,19 +199,16 @@ public class  AssessmentService {
 
         }
 
-        Optional<Question> questionToDelete = assessment.getQuestions().stream()
-                .filter(q -> q.getQuestionId()==questionId)
-                .findFirst();
-
-
-        if (!questionToDelete.isPresent()) {
+        if (!questionRepository.existsInSet(setid, questionId)) {
 
             throw new ResourceNotFoundException("question is not found");
         }
 
-        assessment.getQuestions().remove(questionToDelete.get());
-        questionRepository.deleteById(questionToDelete.get().getQuestionId());
-        assessmentRepository.save(assessment);
+        // Remove the single mapping row, then the question and its answers
+        questionRepository.unlinkFromSet(setid, questionId);
+        answerRepository.deleteByQuestionId(questionId);
+        questionRepository.deleteByQuestionId(questionId);
+        evictQuestionSet(setid, assessment.getSetName());
 
         response.put("message", "Question deleted successfully");
         return response;
@@ -123,11 +216,82 @@ public class  AssessmentService {
 
 
 
+    // Adds a question at the given index of the set (appended when index is null): one question row and one mapping row
+    @Transactional
+    public Question insertQuestion(long setid, QuestionRequest questionRequest, Integer index) {
+        Assessment assessment = assessmentRepository.findById(setid)
+                .orElseThrow(() -> new ResourceNotFoundException(setNameIsInvalid));
+
+        List<QuestionSlot> slots = questionRepository.findSlotsInSet(setid);
+        Question question = assessmentUtil.mapToQuestion(questionRequest);
+        question.setPosition(positionAt(slots, index == null ? slots.size() : index));
+        Question saved = questionRepository.save(question);
+        questionRepository.linkToSet(setid, saved.getQuestionId());
+
+        evictQuestionSet(setid, assessment.getSetName());
+        return saved;
+    }
+
+    // Moves a question to the given index of the set by rewriting its own position only
+    @Transactional
+    public Map<String, String> moveQuestion(long setid, Long questionId, int index) {
+        Assessment assessment = assessmentRepository.findById(setid)
+                .orElseThrow(() -> new ResourceNotFoundException(setNameIsInvalid));
+        if (!questionRepository.existsInSet(setid, questionId)) {
+            throw new ResourceNotFoundException(questionIdIsInvalid);
+        }
+
+        List<QuestionSlot> slots = new ArrayList<>(questionRepository.findSlotsInSet(setid));
+        slots.removeIf(slot -> slot.getQuestionId() == questionId);
+        questionRepository.updatePosition(questionId, positionAt(slots, index));
+
+        evictQuestionSet(setid, assessment.getSetName());
+        Map<String, String> response = new HashMap<>();
+        response.put("message", "Question moved successfully");
+        return response;
+    }
+
+    // Position between the neighbours at index-1 and index; the set is renumbered only when there is no gap left
+    private long positionAt(List<QuestionSlot> slots, int index) {
+        int at = Math.max(0, Math.min(index, slots.size()));
+        Long before = at > 0 ? slots.get(at - 1).getPosition() : null;
+        Long after = at < slots.size() ? slots.get(at).getPosition() : null;
+
+        boolean unpositioned = (at > 0 && before == null) || (at < slots.size() && after == null);
+        if (unpositioned || (before != null && after != null && after - before < 2)) {
+            renumber(slots);
+            before = at > 0 ? (long) at * Question.POSITION_STEP : null;
+            after = at < slots.size() ? (long) (at + 1) * Question.POSITION_STEP : null;
+        }
+
+        if (before == null && after == null) {
+            return Question.POSITION_STEP;
+        }
+        if (before == null) {
+            return after - Question.POSITION_STEP;
+        }
+        if (after == null) {
+            return before + Question.POSITION_STEP;
+        }
+        return before + (after - before) / 2;
+    }
+
+    private void renumber(List<QuestionSlot> slots) {
+        for (int i = 0; i < slots.size(); i++) {
+            long position = (i + 1) * Question.POSITION_STEP;
+            if (!Objects.equals(slots.get(i).getPosition(), position)) {
+                questionRepository.updatePosition(slots.get(i).getQuestionId(), position);
+            }
+        }
+    }
+
+    @Cacheable(cacheNames = CacheConfig.QUESTIONS_BY_SET_NAME, key = "@cacheGenerations.key(#setName)")
+    @Transactional(readOnly = true)
     public List<Question> getQuestionsSetName(String setName) {
         Assessment assessment = assessmentRepository.findBySetName(setName).orElse(null);
         if (assessment == null)
             throw new ResourceNotFoundException("set name is invalid");
-        return assessment.getQuestions();
+        return initializedQuestions(assessment);
 
     }
 
@@ -139,12 +303,114 @@ public class  AssessmentService {
 
     }
 
+    @Cacheable(cacheNames = CacheConfig.QUESTIONS_BY_SET_ID, key = "@cacheGenerations.key(#setid)")
+    @Transactional(readOnly = true)
     public List<Question> getQuestionsSetId(long setid) {
+        return loadQuestionsSetId(setid);
+    }
+
+    // Question sets for many setids: cached sets are reused, the rest are loaded with one IN query and cached
+    @Transactional(readOnly = true)
+    public Map<Long, List<Question>> getQuestionsSetIds(Collection<Long> setids) {
+        Set<Long> requested = new LinkedHashSet<>(setids);
+        if (requested.size() > MAX_BATCH_SET_IDS) {
+            throw new IllegalArgumentException("At most " + MAX_BATCH_SET_IDS + " set ids can be fetched at once");
+        }
+
+        Map<Long, List<Question>> questionsBySetId = new LinkedHashMap<>();
+        Cache cache = cacheManager.getCache(CacheConfig.QUESTIONS_BY_SET_ID);
+        List<Long> misses = new ArrayList<>();
+        for (Long setid : requested) {
+            List<Question> cached = cachedQuestions(cache, cacheGenerations.key(setid));
+            if (cached != null) {
+                questionsBySetId.put(setid, cached);
+            } else {
+                misses.add(setid);
+            }
+        }
+
+        if (!misses.isEmpty()) {
+            for (Assessment assessment : assessmentRepository.findBySetidInOrderBySetid(misses)) {
+                List<Question> questions = initializedQuestions(assessment);
+                questionsBySetId.put(assessment.getSetid(), questions);
+                if (cache != null) {
+                    cache.put(cacheGenerations.key(assessment.getSetid()), questions);
+                }
+            }
+        }
+        return questionsBySetId;
+    }
+
+    // The set-id response is encoded once per version of the set instead of once per request
+    @Cacheable(cacheNames = CacheConfig.QUESTION_PAYLOADS_BY_SET_ID, key = "@cacheGenerations.key(#setid)")
+    @Transactional(readOnly = true)
+    public QuestionSetPayload getQuestionsSetIdPayload(long setid) {
+        List<Question> questions = cachedQuestionsSetId(setid);
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(questions);
+            return new QuestionSetPayload(json, gzipPayloads ? gzip(json) : null);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static byte[] gzip(byte[] json) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(json.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(json);
+        }
+        return out.toByteArray();
+    }
+
+    // A call to getQuestionsSetId on this would skip the @Cacheable proxy, so the cache is read here directly
+    private List<Question> cachedQuestionsSetId(long setid) {
+        Cache cache = cacheManager.getCache(CacheConfig.QUESTIONS_BY_SET_ID);
+        String key = cacheGenerations.key(setid);
+        List<Question> cached = cachedQuestions(cache, key);
+        if (cached != null) {
+            return cached;
+        }
+        List<Question> questions = loadQuestionsSetId(setid);
+        if (cache != null) {
+            cache.put(key, questions);
+        }
+        return questions;
+    }
+
+    // Only question lists are stored under QUESTIONS_BY_SET_ID, so the one unchecked cast is safe
+    @SuppressWarnings("unchecked")
+    private static List<Question> cachedQuestions(Cache cache, String key) {
+        Cache.ValueWrapper cached = cache == null ? null : cache.get(key);
+        return cached == null ? null : (List<Question>) cached.get();
+    }
+
+    private List<Question> loadQuestionsSetId(long setid) {
         Assessment assessment = assessmentRepository.findBySetid(setid).orElse(null);
         if (assessment == null)
             throw new ResourceNotFoundException("set id is invalid");
-        return assessment.getQuestions();
+        return initializedQuestions(assessment);
+    }
 
+    // Cached values outlive the session, so the answers have to be loaded before the list is handed out
+    private List<Question> initializedQuestions(Assessment assessment) {
+        List<Question> questions = new ArrayList<>(assessment.getQuestions());
+        questions.forEach(question -> Hibernate.initialize(question.getAnswers()));
+        return questions;
+    }
+
+    private void evictQuestionSet(Long setid, String setName) {
+        evict(CacheConfig.QUESTIONS_BY_SET_ID, setid);
+        evict(CacheConfig.QUESTIONS_BY_SET_NAME, setName);
+        evict(CacheConfig.QUESTION_PAYLOADS_BY_SET_ID, setid);
+    }
+
+    // Drops the current entry and retires its key once the write commits
+    private void evict(String cacheName, Object key) {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache != null && key != null) {
+            cache.evict(cacheGenerations.key(key));
+        }
+        cacheGenerations.advanceAfterCommit(key);
     }
 
 }
\ No newline at end of file
@@ -1,6 +1,7 @@
 package com.example.AssessmentService.utils;
 
 import com.example.AssessmentService.dto.AssessmentDTO;
+import com.example.AssessmentService.dto.QuestionRequest;
 import com.example.AssessmentService.model.Answer;
 import com.example.AssessmentService.model.Assessment;
 import com.example.AssessmentService.model.Question;
@@ -22,37 +23,42 @@ public class AssessmentUtil {
         assessment.setDomain(assessmentDto.getDomain());
 
 
-        List<Question> questions = assessmentDto.getQuestions().stream()
-                .map(questionRequest -> {
-                    Question question = new Question();
-                    question.setDescription(questionRequest.getDescription());
-                   // question.setAssessment(assessment);
-                    if(questionRequest.getAnswers()!=null)
-                    {
-                        List<Answer> answerList = questionRequest.getAnswers().stream()
-                                .map(answerDTO -> {
-                                    Answer answer = new Answer();
-                                    answer.setQuestion(question);
-                                    answer.setValue(answerDTO.getValue());
-                                    answer.setSuggestion(answerDTO.getSuggestion());
-                                    return answer;
-
-                                })
-                                .collect(Collectors.toList());
-                        question.setAnswers(answerList);
-                    }
-                    // Initialize answers as empty list
-                    else{
-                        question.setAnswers(new ArrayList<>());
-                    }
-                    return question;
-                })
-                .collect(Collectors.toList());
+        List<Question> questions = new ArrayList<>();
+        for (QuestionRequest questionRequest : assessmentDto.getQuestions()) {
+            Question question = mapToQuestion(questionRequest);
+            question.setPosition((questions.size() + 1) * Question.POSITION_STEP);
+            questions.add(question);
+        }
 
         assessment.setQuestions(questions);
 
         return assessment;
     }
+
+    public Question mapToQuestion(QuestionRequest questionRequest) {
+        Question question = new Question();
+        question.setDescription(questionRequest.getDescription());
+        if(questionRequest.getAnswers()!=null)
+        {
+            List<Answer> answerList = questionRequest.getAnswers().stream()
+                    .map(answerDTO -> {
+                        Answer answer = new Answer();
+                        answer.setQuestion(question);
+                        answer.setValue(answerDTO.getValue());
+                        answer.setSuggestion(answerDTO.getSuggestion());
+                        return answer;
+
+                    })
+                    .collect(Collectors.toList());
+            question.setAnswers(answerList);
+        }
+        // Initialize answers as empty list
+        else{
+            question.setAnswers(new ArrayList<>());
+        }
+        return question;
+    }
+
     public AssessmentDTO mapToAssessmentDTO(Assessment assessment) {
         AssessmentDTO assessmentDTO = new AssessmentDTO();
         assessmentDTO.setSetName(assessment.getSetName());
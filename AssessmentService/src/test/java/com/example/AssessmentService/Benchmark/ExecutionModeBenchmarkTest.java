@@ -0,0 +1,213 @@
+package com.example.AssessmentService.Benchmark;
+
+import com.example.AssessmentService.AssessmentServiceApplication;
+import com.example.AssessmentService.config.PermitDataSource;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.sql.Connection;
+import java.sql.Driver;
+import java.sql.DriverPropertyInfo;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// The whole service over HTTP on platform threads versus virtual threads, against H2 behind a driver that adds a
+// network round trip to every statement. 200 clients page through the catalog (database-bound) while 10 clients
+// fetch a cached set (no database work). Run with: mvn test -Pbenchmark
+@Tag("benchmark")
+class ExecutionModeBenchmarkTest {
+
+    private static final int DB_CLIENTS = 200;
+    private static final int CACHED_CLIENTS = 10;
+    private static final int POOL_SIZE = 10;
+    // Below the Tomcat default of 200 so the run stays short; what matters is that database clients outnumber threads
+    private static final int PLATFORM_THREADS = 50;
+    // Slow enough that the ten connections, not the CPU, are what limits the database-bound calls
+    private static final long ROUND_TRIP_MILLIS = 50;
+    private static final long WARMUP_MILLIS = 2_000;
+    private static final long MEASURED_MILLIS = 5_000;
+
+    private final HttpClient http = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .build();
+
+    @Test
+    void virtualThreadsShouldKeepServingWhileDatabaseIsSaturated() throws Exception {
+        Result platform = run("platform", false);
+        Result virtual = run("virtual", true);
+
+        System.out.printf("platform threads: %,.0f db calls/s, %,.0f cached calls/s, %d errors%n", platform.dbCallsPerSecond(), platform.cachedCallsPerSecond(), platform.errors());
+        System.out.printf("virtual threads:  %,.0f db calls/s, %,.0f cached calls/s, %d errors%n", virtual.dbCallsPerSecond(), virtual.cachedCallsPerSecond(), virtual.errors());
+        assertEquals(0, platform.errors());
+        assertEquals(0, virtual.errors());
+        assertTrue(virtual.cachedCallsPerSecond() > 5 * platform.cachedCallsPerSecond());
+        // Both modes are held to the same ten connections; the cached calls now get CPU time the database calls used to have
+        assertTrue(virtual.dbCallsPerSecond() > 0.7 * platform.dbCallsPerSecond());
+    }
+
+    private Result run(String mode, boolean virtualThreads) throws Exception {
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(AssessmentServiceApplication.class)
+                .profiles("h2")
+                .run("--server.port=0",
+                        "--spring.threads.virtual.enabled=" + virtualThreads,
+                        "--server.tomcat.threads.max=" + PLATFORM_THREADS,
+                        "--spring.datasource.url=" + SlowH2Driver.PREFIX + "h2:mem:" + mode + ";DB_CLOSE_DELAY=-1",
+                        "--spring.datasource.driver-class-name=" + SlowH2Driver.class.getName(),
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--spring.datasource.hikari.maximum-pool-size=" + POOL_SIZE,
+                        "--spring.jpa.hibernate.ddl-auto=create-drop",
+                        "--logging.level.org.springframework.web=WARN")) {
+            if (virtualThreads) {
+                assertInstanceOf(PermitDataSource.class, context.getBean(DataSource.class));
+            }
+            String base = "http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort() + "/assessments";
+            String cached = base + "/set-id/" + createSet(base);
+            String page = base + "?size=20";
+            assertEquals(200, get(cached));
+
+            load(page, cached, WARMUP_MILLIS);
+            return load(page, cached, MEASURED_MILLIS);
+        }
+    }
+
+    private Result load(String dbUri, String cachedUri, long millis) throws InterruptedException {
+        AtomicLong dbCalls = new AtomicLong();
+        AtomicLong cachedCalls = new AtomicLong();
+        AtomicLong errors = new AtomicLong();
+        AtomicBoolean running = new AtomicBoolean(true);
+        List<Runnable> clients = new ArrayList<>();
+        for (int i = 0; i < DB_CLIENTS; i++) {
+            clients.add(() -> call(dbUri, running, dbCalls, errors));
+        }
+        for (int i = 0; i < CACHED_CLIENTS; i++) {
+            clients.add(() -> call(cachedUri, running, cachedCalls, errors));
+        }
+
+        long start = System.nanoTime();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            clients.forEach(executor::submit);
+            TimeUnit.MILLISECONDS.sleep(millis);
+            running.set(false);
+        }
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+        return new Result(dbCalls.get() / seconds, cachedCalls.get() / seconds, errors.get());
+    }
+
+    private void call(String uri, AtomicBoolean running, AtomicLong calls, AtomicLong errors) {
+        while (running.get()) {
+            if (get(uri) == 200) {
+                calls.incrementAndGet();
+            } else {
+                errors.incrementAndGet();
+            }
+        }
+    }
+
+    private int get(String uri) {
+        try {
+            return http.send(HttpRequest.newBuilder(URI.create(uri)).build(), HttpResponse.BodyHandlers.discarding()).statusCode();
+        } catch (Exception e) {
+            return -1;
+        }
+    }
+
+    private long createSet(String base) throws Exception {
+        String body = "{\"setName\":\"benchmark\",\"domain\":\"benchmark\",\"questions\":[{\"description\":\"question\","
+                + "\"answers\":[{\"value\":\"yes\",\"suggestion\":\"none\"},{\"value\":\"no\",\"suggestion\":\"none\"}]}]}";
+        HttpResponse<String> response = http.send(HttpRequest.newBuilder(URI.create(base))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(201, response.statusCode(), response.body());
+        Matcher setid = Pattern.compile("\"setid\":(\\d+)").matcher(response.body());
+        assertTrue(setid.find(), response.body());
+        return Long.parseLong(setid.group(1));
+    }
+
+    // H2 with a sleep before every statement, standing in for the round trip to a remote MySQL
+    public static class SlowH2Driver implements Driver {
+
+        static final String PREFIX = "jdbc:slow:";
+
+        private final Driver h2 = org.h2.Driver.load();
+
+        @Override
+        public Connection connect(String url, Properties info) throws SQLException {
+            if (!acceptsURL(url)) {
+                return null;
+            }
+            Connection connection = h2.connect("jdbc:" + url.substring(PREFIX.length()), info);
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                    (proxy, method, args) -> {
+                        if (method.getName().startsWith("prepare")) {
+                            TimeUnit.MILLISECONDS.sleep(ROUND_TRIP_MILLIS);
+                        }
+                        try {
+                            return method.invoke(connection, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getTargetException();
+                        }
+                    });
+        }
+
+        @Override
+        public boolean acceptsURL(String url) {
+            return url != null && url.startsWith(PREFIX);
+        }
+
+        @Override
+        public DriverPropertyInfo[] getPropertyInfo(String url, Properties info) {
+            return new DriverPropertyInfo[0];
+        }
+
+        @Override
+        public int getMajorVersion() {
+            return 1;
+        }
+
+        @Override
+        public int getMinorVersion() {
+            return 0;
+        }
+
+        @Override
+        public boolean jdbcCompliant() {
+            return false;
+        }
+
+        @Override
+        public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+            throw new SQLFeatureNotSupportedException();
+        }
+    }
+
+    private record Result(double dbCallsPerSecond, double cachedCallsPerSecond, long errors) {
+    }
+}
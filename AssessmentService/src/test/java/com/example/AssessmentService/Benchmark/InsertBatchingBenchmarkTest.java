@@ -0,0 +1,99 @@
+package com.example.AssessmentService.Benchmark;
+
+import com.example.AssessmentService.dto.AnswerDTO;
+import com.example.AssessmentService.dto.AssessmentDTO;
+import com.example.AssessmentService.dto.QuestionRequest;
+import com.example.AssessmentService.repo.AssessmentRepository;
+import com.example.AssessmentService.utils.AssessmentUtil;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// createAssessment with 100 questions x 4 answers, row-by-row inserts versus JDBC batches of 50.
+// Run with: mvn test -Pbenchmark
+@Tag("benchmark")
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.jdbc.batch_size=50")
+@ActiveProfiles("h2")
+@Import(AssessmentUtil.class)
+class InsertBatchingBenchmarkTest {
+
+    private static final int WARMUP_SETS = 20;
+    private static final int MEASURED_SETS = 50;
+
+    @Autowired
+    private AssessmentRepository assessmentRepository;
+
+    @Autowired
+    private AssessmentUtil assessmentUtil;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void batchedInsertsShouldOutperformRowByRowInserts() {
+        run("warmup", 1, WARMUP_SETS);
+        run("warmup", 50, WARMUP_SETS);
+
+        Result rowByRow = run("row-by-row", 1, MEASURED_SETS);
+        Result batched = run("batched", 50, MEASURED_SETS);
+
+        System.out.printf("row-by-row: %,.0f rows/s, %d JDBC statements%n", rowByRow.rowsPerSecond(), rowByRow.statements());
+        System.out.printf("batched:    %,.0f rows/s, %d JDBC statements%n", batched.rowsPerSecond(), batched.statements());
+        assertTrue(batched.statements() * 10 < rowByRow.statements());
+    }
+
+    private Result run(String label, int batchSize, int sets) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        entityManager.unwrap(Session.class).setJdbcBatchSize(batchSize);
+        statistics.clear();
+
+        long start = System.nanoTime();
+        for (int i = 0; i < sets; i++) {
+            assessmentRepository.save(assessmentUtil.MapToAssessment(assessment(label + "-" + batchSize + "-" + i)));
+            entityManager.flush();
+            entityManager.clear();
+        }
+        long elapsed = System.nanoTime() - start;
+
+        long rows = sets * (1L + 100 + 100 * 4 + 100);
+        return new Result(rows * 1_000_000_000.0 / elapsed, statistics.getPrepareStatementCount());
+    }
+
+    private static AssessmentDTO assessment(String name) {
+        List<QuestionRequest> questions = new ArrayList<>();
+        for (int q = 0; q < 100; q++) {
+            QuestionRequest question = new QuestionRequest();
+            question.setDescription("question " + q);
+            List<AnswerDTO> answers = new ArrayList<>();
+            for (int a = 0; a < 4; a++) {
+                answers.add(new AnswerDTO("answer " + a, "suggestion " + a));
+            }
+            question.setAnswers(answers);
+            questions.add(question);
+        }
+        AssessmentDTO assessment = new AssessmentDTO();
+        assessment.setSetName(name);
+        assessment.setDomain("benchmark");
+        assessment.setQuestions(questions);
+        return assessment;
+    }
+
+    private record Result(double rowsPerSecond, long statements) {
+    }
+}
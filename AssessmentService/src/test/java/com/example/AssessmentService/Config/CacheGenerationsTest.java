@@ -0,0 +1,45 @@
+package com.example.AssessmentService.Config;
+
+import com.example.AssessmentService.config.CacheGenerations;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CacheGenerationsTest {
+
+    private final CacheGenerations generations = new CacheGenerations();
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void advanceAfterCommit_shouldKeepKeyUntilCommit() {
+        String before = generations.key(7L);
+        TransactionSynchronizationManager.initSynchronization();
+
+        generations.advanceAfterCommit(7L);
+        assertEquals(before, generations.key(7L));
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        assertNotEquals(before, generations.key(7L));
+    }
+
+    @Test
+    void advanceAfterCommit_shouldLeaveKeyOnRollback() {
+        String before = generations.key("Java");
+        TransactionSynchronizationManager.initSynchronization();
+
+        generations.advanceAfterCommit("Java");
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+        assertEquals(before, generations.key("Java"));
+    }
+}
@@ -0,0 +1,129 @@
+package com.example.AssessmentService.Config;
+
+import com.example.AssessmentService.config.PermitDataSource;
+import com.example.AssessmentService.config.VirtualThreadConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class VirtualThreadConfigTest {
+
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withConfiguration(AutoConfigurations.of(DataSourceAutoConfiguration.class))
+            .withUserConfiguration(VirtualThreadConfig.class)
+            .withPropertyValues("spring.datasource.url=jdbc:h2:mem:virtual-thread-config", "spring.datasource.hikari.maximum-pool-size=7");
+
+    @Test
+    void virtualThreads_shouldPutPermitsInFrontOfPool() {
+        contextRunner.withPropertyValues("spring.threads.virtual.enabled=true").run(context -> {
+            PermitDataSource dataSource = assertInstanceOf(PermitDataSource.class, context.getBean(DataSource.class));
+            HikariDataSource hikari = context.getBean(HikariDataSource.class);
+            assertSame(hikari, dataSource.getTargetDataSource());
+            assertEquals(7, hikari.getMaximumPoolSize());
+            assertEquals(7, dataSource.availablePermits());
+        });
+    }
+
+    @Test
+    void platformThreads_shouldLeavePoolUnwrapped() {
+        contextRunner.withPropertyValues("spring.threads.virtual.enabled=false").run(context -> {
+            assertInstanceOf(HikariDataSource.class, context.getBean(DataSource.class));
+            assertTrue(context.getBeansOfType(PermitDataSource.class).isEmpty());
+        });
+    }
+
+    // The pool would wait 5s on its own; the permit wait and the pool wait together stay within the 300ms budget
+    @Test
+    void getConnection_shouldWaitForPoolOnlyForWhatIsLeftOfTimeout() throws SQLException {
+        HikariDataSource hikari = new HikariDataSource();
+        hikari.setJdbcUrl("jdbc:h2:mem:permit-budget");
+        hikari.setMaximumPoolSize(1);
+        hikari.setConnectionTimeout(5000);
+        try (hikari; Connection held = hikari.getConnection()) {
+            PermitDataSource dataSource = new PermitDataSource(hikari, 2, 300);
+
+            long start = System.nanoTime();
+            assertThrows(SQLTransientConnectionException.class, dataSource::getConnection);
+            assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 2000);
+            assertEquals(2, dataSource.availablePermits());
+        }
+    }
+
+    @Test
+    void getConnection_shouldWaitForClosedConnection() throws SQLException {
+        DataSource target = mock(DataSource.class);
+        when(target.getConnection()).thenAnswer(invocation -> mock(Connection.class));
+        PermitDataSource dataSource = new PermitDataSource(target, 2, 50);
+
+        Connection first = dataSource.getConnection();
+        dataSource.getConnection();
+        assertThrows(SQLTransientConnectionException.class, dataSource::getConnection);
+
+        first.close();
+        assertNotNull(dataSource.getConnection());
+        assertEquals(0, dataSource.availablePermits());
+    }
+
+    @Test
+    void close_shouldReturnPermitOnlyOnce() throws SQLException {
+        DataSource target = mock(DataSource.class);
+        Connection connection = mock(Connection.class);
+        when(target.getConnection()).thenReturn(connection);
+        PermitDataSource dataSource = new PermitDataSource(target, 2, 50);
+
+        Connection permitted = dataSource.getConnection();
+        permitted.close();
+        permitted.close();
+
+        assertEquals(2, dataSource.availablePermits());
+        verify(connection, times(2)).close();
+    }
+
+    @Test
+    void getConnection_shouldReturnPermitWhenPoolFails() throws SQLException {
+        DataSource target = mock(DataSource.class);
+        when(target.getConnection()).thenThrow(new SQLTransientConnectionException("pool exhausted"));
+        PermitDataSource dataSource = new PermitDataSource(target, 1, 50);
+
+        assertThrows(SQLTransientConnectionException.class, dataSource::getConnection);
+        assertEquals(1, dataSource.availablePermits());
+    }
+
+    @Test
+    void getConnectionWithCredentials_shouldShareTimeoutAndPermits() throws SQLException {
+        DataSource target = mock(DataSource.class);
+        when(target.getConnection()).thenAnswer(invocation -> mock(Connection.class));
+        when(target.getConnection("user", "secret")).thenAnswer(invocation -> mock(Connection.class));
+        PermitDataSource dataSource = new PermitDataSource(target, 1, 50);
+
+        Connection held = dataSource.getConnection();
+        long start = System.nanoTime();
+        assertThrows(SQLTransientConnectionException.class, () -> dataSource.getConnection("user", "secret"));
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 2000);
+
+        held.close();
+        dataSource.getConnection("user", "secret").close();
+        assertEquals(1, dataSource.availablePermits());
+    }
+
+    @Test
+    void getConnectionWithCredentials_shouldReturnPermitWhenTargetFails() throws SQLException {
+        DataSource target = mock(DataSource.class);
+        when(target.getConnection("user", "secret")).thenThrow(new SQLTransientConnectionException("pool exhausted"));
+        PermitDataSource dataSource = new PermitDataSource(target, 1, 50);
+
+        assertThrows(SQLTransientConnectionException.class, () -> dataSource.getConnection("user", "secret"));
+        assertEquals(1, dataSource.availablePermits());
+    }
+}
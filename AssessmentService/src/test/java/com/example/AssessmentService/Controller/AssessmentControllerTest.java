@@ -4,6 +4,9 @@ package com.example.AssessmentService.Controller;
 import com.example.AssessmentService.controller.AssessmentController;
 import com.example.AssessmentService.dto.AssessmentDTO;
 import com.example.AssessmentService.dto.AnswerDTO;
+import com.example.AssessmentService.dto.AssessmentPage;
+import com.example.AssessmentService.dto.QuestionRequest;
+import com.example.AssessmentService.dto.QuestionSetPayload;
 import com.example.AssessmentService.model.Assessment;
 import com.example.AssessmentService.model.Question;
 import com.example.AssessmentService.service.AssessmentService;
@@ -14,19 +17,35 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 class AssessmentControllerTest {
 
@@ -39,6 +58,7 @@ class AssessmentControllerTest {
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(assessmentController, "exportTimeout", Duration.ofMinutes(30));
     }
 
     @Test
@@ -52,6 +72,72 @@ class AssessmentControllerTest {
         assertEquals(mockAssessments, response.getBody());
     }
 
+    @Test
+    void testGetAssessmentPage() {
+        AssessmentPage mockPage = new AssessmentPage(Arrays.asList(new Assessment()), 4L);
+        when(assessmentService.getAssessmentPage(2L, "Java", 1)).thenReturn(mockPage);
+
+        ResponseEntity<AssessmentPage> response = assessmentController.getAssessmentPage(2L, "Java", 1);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(mockPage, response.getBody());
+    }
+
+    @Test
+    void getAssessmentPage_shouldLeaveSetNamedPageToGetBySetName() throws Exception {
+        MockMvc mockMvc = MockMvcBuilders.standaloneSetup(assessmentController).build();
+        when(assessmentService.getAssessmentPage(null, null, 20)).thenReturn(new AssessmentPage(List.of(), null));
+
+        mockMvc.perform(get("/assessments/page")).andExpect(status().isOk());
+        mockMvc.perform(get("/assessments").param("size", "20")).andExpect(status().isOk());
+
+        verify(assessmentService).getQuestionsSetName("page");
+        verify(assessmentService).getAssessmentPage(null, null, 20);
+    }
+
+    @Test
+    void getQuestionsBySetids_shouldLeaveSetNamedSetIdsToGetBySetName() throws Exception {
+        MockMvc mockMvc = MockMvcBuilders.standaloneSetup(assessmentController).build();
+        when(assessmentService.getQuestionsSetIds(List.of(1L, 2L))).thenReturn(Map.of());
+
+        mockMvc.perform(get("/assessments/set-ids")).andExpect(status().isOk());
+        mockMvc.perform(get("/assessments").param("ids", "1,2")).andExpect(status().isOk());
+
+        verify(assessmentService).getQuestionsSetName("set-ids");
+        verify(assessmentService).getQuestionsSetIds(List.of(1L, 2L));
+    }
+
+    @Test
+    void exportCatalog_shouldLeaveSetNamedExportToGetBySetName() throws Exception {
+        MockMvc mockMvc = MockMvcBuilders.standaloneSetup(assessmentController).build();
+
+        mockMvc.perform(get("/assessments/export")).andExpect(status().isOk());
+        mockMvc.perform(get("/assessments").param("format", "ndjson")).andExpect(request().asyncStarted());
+
+        verify(assessmentService).getQuestionsSetName("export");
+        verify(assessmentService, never()).getAllAssessments();
+    }
+
+    @Test
+    void testExportCatalog() throws Exception {
+        MockMvc mockMvc = MockMvcBuilders.standaloneSetup(assessmentController).build();
+        doAnswer(invocation -> {
+            invocation.<OutputStream>getArgument(0).write("{\"setid\":1}\n".getBytes(StandardCharsets.UTF_8));
+            return 1L;
+        }).when(assessmentService).exportCatalog(any());
+
+        MvcResult started = mockMvc.perform(get("/assessments").param("format", "ndjson"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        assertEquals(Duration.ofMinutes(30).toMillis(), started.getRequest().getAsyncContext().getTimeout());
+        mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andExpect(content().string("{\"setid\":1}\n"));
+        verify(assessmentService, times(1)).exportCatalog(any());
+    }
+
     @Test
     void testCreateAssessment() {
         AssessmentDTO mockAssessmentDTO = new AssessmentDTO();
@@ -77,13 +163,69 @@ class AssessmentControllerTest {
 
     @Test
     void testGetQuestionsBySetid() {
-        List<Question> mockQuestions = Arrays.asList(new Question(), new Question());
-        when(assessmentService.getQuestionsSetId(1L)).thenReturn(mockQuestions);
+        QuestionSetPayload mockPayload = new QuestionSetPayload("[]".getBytes(), new byte[]{31, -117});
+        when(assessmentService.getQuestionsSetIdPayload(1L)).thenReturn(mockPayload);
 
-        ResponseEntity<List<Question>> response = assessmentController.getQuestionsBySetid(1L);
+        ResponseEntity<byte[]> response = assessmentController.getQuestionsBySetid(1L, null);
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
-        assertEquals(mockQuestions, response.getBody());
+        assertEquals(mockPayload.getJson(), response.getBody());
+        assertNull(response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+    }
+
+    @Test
+    void testGetQuestionsBySetidGzip() {
+        QuestionSetPayload mockPayload = new QuestionSetPayload("[]".getBytes(), new byte[]{31, -117});
+        when(assessmentService.getQuestionsSetIdPayload(1L)).thenReturn(mockPayload);
+
+        ResponseEntity<byte[]> response = assessmentController.getQuestionsBySetid(1L, "gzip, deflate");
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(mockPayload.getGzip(), response.getBody());
+        assertEquals("gzip", response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+    }
+
+    @Test
+    void testGetQuestionsBySetidHonoursGzipQValues() {
+        QuestionSetPayload mockPayload = new QuestionSetPayload("[]".getBytes(), new byte[]{31, -117});
+        when(assessmentService.getQuestionsSetIdPayload(1L)).thenReturn(mockPayload);
+
+        for (String refused : List.of("gzip;q=0", "x-gzip-foo", "deflate", "*;q=0", "*, gzip;q=0.0")) {
+            assertEquals(mockPayload.getJson(), assessmentController.getQuestionsBySetid(1L, refused).getBody(), refused);
+        }
+        for (String accepted : List.of("GZIP;Q=0.5", "x-gzip", "br, *;q=0.1", "gzip;q=0, gzip;q=1")) {
+            assertEquals(mockPayload.getGzip(), assessmentController.getQuestionsBySetid(1L, accepted).getBody(), accepted);
+        }
+    }
+
+    @Test
+    void testGetQuestionsBySetidNotFound() throws Exception {
+        MockMvc mockMvc = MockMvcBuilders.standaloneSetup(assessmentController).build();
+        when(assessmentService.getQuestionsSetIdPayload(1L)).thenThrow(new ResourceNotFoundException("set id is invalid"));
+
+        // The same contract as the other routes: 200 with the message
+        mockMvc.perform(get("/assessments/set-id/1"))
+                .andExpect(status().isOk())
+                .andExpect(content().string("set id is invalid"));
+    }
+
+    @Test
+    void testGetQuestionsBySetids() {
+        Map<Long, List<Question>> mockSets = Map.of(1L, List.of(new Question()), 2L, List.of(new Question()));
+        when(assessmentService.getQuestionsSetIds(List.of(1L, 2L))).thenReturn(mockSets);
+
+        ResponseEntity<Map<Long, List<Question>>> response = assessmentController.getQuestionsBySetids(List.of(1L, 2L));
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(mockSets, response.getBody());
+    }
+
+    @Test
+    void testHandleIllegalArgumentException() {
+        ResponseEntity<String> response = assessmentController.handleIllegalArgumentException(new IllegalArgumentException("too many"));
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertEquals("too many", response.getBody());
     }
 
     @Test
@@ -97,6 +239,41 @@ class AssessmentControllerTest {
         assertEquals("Question updated", response.getBody());
     }
 
+    @Test
+    void testAddAnswers() {
+        Map<Long, List<AnswerDTO>> request = Map.of(2L, List.of(new AnswerDTO("value1", "suggestion1")));
+        Map<Long, String> mockResponse = Map.of(2L, "1 answers added");
+        when(assessmentService.addAnswers(1L, request)).thenReturn(mockResponse);
+
+        ResponseEntity<Map<Long, String>> response = assessmentController.addAnswers(1L, request);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(mockResponse, response.getBody());
+    }
+
+    @Test
+    void testInsertQuestion() {
+        QuestionRequest request = new QuestionRequest();
+        Question mockQuestion = new Question();
+        when(assessmentService.insertQuestion(1L, request, 2)).thenReturn(mockQuestion);
+
+        ResponseEntity<Question> response = assessmentController.insertQuestion(1L, 2, request);
+
+        assertEquals(HttpStatus.CREATED, response.getStatusCode());
+        assertEquals(mockQuestion, response.getBody());
+    }
+
+    @Test
+    void testMoveQuestion() {
+        Map<String, String> mockResponse = Map.of("message", "Question moved successfully");
+        when(assessmentService.moveQuestion(1L, 3L, 0)).thenReturn(mockResponse);
+
+        ResponseEntity<Map<String, String>> response = assessmentController.moveQuestion(1L, 3L, 0);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(mockResponse, response.getBody());
+    }
+
     @Test
     void testDeleteQuestion() {
         Map<String, String> mockResponse = Map.of("status", "deleted");
@@ -0,0 +1,187 @@
+package com.example.AssessmentService.Repo;
+
+import com.example.AssessmentService.model.Answer;
+import com.example.AssessmentService.model.Assessment;
+import com.example.AssessmentService.model.Question;
+import com.example.AssessmentService.repo.AnswerRepository;
+import com.example.AssessmentService.repo.AssessmentRepository;
+import com.example.AssessmentService.repo.QuestionRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@ActiveProfiles("h2")
+class AssessmentRepositoryTest {
+
+    @Autowired
+    private AssessmentRepository assessmentRepository;
+
+    @Autowired
+    private QuestionRepository questionRepository;
+
+    @Autowired
+    private AnswerRepository answerRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void findAll_shouldLoadWholeCatalogInFixedNumberOfQueries() {
+        persistSets(0, 3, 2, 2);
+        assertEquals(2, countQueriesForFullCatalogRead(3));
+
+        persistSets(3, 40, 5, 4);
+        assertEquals(2, countQueriesForFullCatalogRead(43));
+    }
+
+    @Test
+    void findBySetid_shouldLoadQuestionsAndAnswersInFixedNumberOfQueries() {
+        List<Long> ids = persistSets(0, 1, 25, 4);
+        entityManager.clear();
+        statistics.clear();
+
+        Assessment assessment = assessmentRepository.findBySetid(ids.get(0)).orElseThrow();
+        int answers = assessment.getQuestions().stream().mapToInt(q -> q.getAnswers().size()).sum();
+
+        assertEquals(100, answers);
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void findSetidPage_shouldWalkCatalogByKeyset() {
+        List<Long> ids = persistSets(0, 5, 1, 1);
+
+        List<Long> first = assessmentRepository.findSetidPage(0L, Limit.of(2));
+        List<Long> second = assessmentRepository.findSetidPage(first.get(1), Limit.of(2));
+        List<Long> last = assessmentRepository.findSetidPage(second.get(1), Limit.of(2));
+
+        assertEquals(ids.subList(0, 2), first);
+        assertEquals(ids.subList(2, 4), second);
+        assertEquals(ids.subList(4, 5), last);
+    }
+
+    @Test
+    void findSetidPageByDomain_shouldOnlyReturnMatchingSets() {
+        List<Long> ids = persistSets(0, 4, 1, 1);
+        Assessment other = assessmentRepository.findById(ids.get(1)).orElseThrow();
+        other.setDomain("other");
+        entityManager.flush();
+
+        List<Long> page = assessmentRepository.findSetidPageByDomain(0L, "other", Limit.of(10));
+
+        assertEquals(List.of(ids.get(1)), page);
+    }
+
+    @Test
+    void findBySetidIn_shouldLoadPageInFixedNumberOfQueries() {
+        List<Long> ids = persistSets(0, 30, 3, 3);
+        entityManager.clear();
+        statistics.clear();
+
+        List<Long> page = assessmentRepository.findSetidPage(ids.get(9), Limit.of(10));
+        List<Assessment> assessments = assessmentRepository.findBySetidInOrderBySetid(page);
+        assessments.forEach(a -> a.getQuestions().forEach(q -> q.getAnswers().size()));
+
+        assertEquals(ids.subList(10, 20), assessments.stream().map(Assessment::getSetid).toList());
+        assertEquals(3, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void existsInSet_shouldOnlyMatchQuestionsOfThatSet() {
+        List<Long> ids = persistSets(0, 2, 2, 1);
+        entityManager.clear();
+        long questionOfFirst = assessmentRepository.findBySetid(ids.get(0)).orElseThrow().getQuestions().get(0).getQuestionId();
+
+        assertTrue(questionRepository.existsInSet(ids.get(0), questionOfFirst));
+        assertFalse(questionRepository.existsInSet(ids.get(1), questionOfFirst));
+    }
+
+    @Test
+    void deleteQuestion_shouldOnlyTouchRowsOfThatQuestion() {
+        List<Long> ids = persistSets(0, 1, 50, 3);
+        entityManager.clear();
+        long questionId = assessmentRepository.findBySetid(ids.get(0)).orElseThrow().getQuestions().get(10).getQuestionId();
+        entityManager.clear();
+        statistics.clear();
+
+        assertEquals(1, questionRepository.unlinkFromSet(ids.get(0), questionId));
+        assertEquals(3, answerRepository.deleteByQuestionId(questionId));
+        assertEquals(1, questionRepository.deleteByQuestionId(questionId));
+
+        assertEquals(3, statistics.getPrepareStatementCount());
+        entityManager.clear();
+        assertEquals(49, assessmentRepository.findBySetid(ids.get(0)).orElseThrow().getQuestions().size());
+    }
+
+    @Test
+    void save_shouldInsertWholeSetInJdbcBatches() {
+        statistics.clear();
+
+        persistSets(0, 1, 100, 4);
+
+        // 1 set + 100 questions + 400 answers + 100 mapping rows would be 601 statements row by row
+        assertTrue(statistics.getPrepareStatementCount() < 30, "statements: " + statistics.getPrepareStatementCount());
+    }
+
+    private long countQueriesForFullCatalogRead(int expectedSets) {
+        entityManager.clear();
+        statistics.clear();
+
+        List<Assessment> assessments = assessmentRepository.findAll();
+        // Walk the tree the same way Jackson does when serialising the response
+        assessments.forEach(a -> a.getQuestions().forEach(q -> q.getAnswers().size()));
+
+        assertEquals(expectedSets, assessments.size());
+        return statistics.getPrepareStatementCount();
+    }
+
+    private List<Long> persistSets(int offset, int sets, int questionsPerSet, int answersPerQuestion) {
+        List<Long> ids = new ArrayList<>();
+        for (int s = 0; s < sets; s++) {
+            Assessment assessment = new Assessment();
+            assessment.setSetName("set-" + (offset + s));
+            assessment.setDomain("domain");
+            List<Question> questions = new ArrayList<>();
+            for (int q = 0; q < questionsPerSet; q++) {
+                Question question = new Question();
+                question.setDescription("question " + q);
+                List<Answer> answers = new ArrayList<>();
+                for (int a = 0; a < answersPerQuestion; a++) {
+                    Answer answer = new Answer();
+                    answer.setValue("answer " + a);
+                    answer.setQuestion(question);
+                    answers.add(answer);
+                }
+                question.setAnswers(answers);
+                questions.add(question);
+            }
+            assessment.setQuestions(questions);
+            ids.add(assessmentRepository.save(assessment).getSetid());
+        }
+        entityManager.flush();
+        return ids;
+    }
+}
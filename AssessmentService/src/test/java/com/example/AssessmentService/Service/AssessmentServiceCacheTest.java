@@ -0,0 +1,204 @@
+package com.example.AssessmentService.Service;
+
+import com.example.AssessmentService.config.CacheConfig;
+import com.example.AssessmentService.config.CacheGenerations;
+import com.example.AssessmentService.dto.AnswerDTO;
+import com.example.AssessmentService.dto.AssessmentDTO;
+import com.example.AssessmentService.dto.QuestionRequest;
+import com.example.AssessmentService.dto.QuestionSetPayload;
+import com.example.AssessmentService.model.Assessment;
+import com.example.AssessmentService.model.Question;
+import com.example.AssessmentService.repo.AssessmentRepository;
+import com.example.AssessmentService.repo.QuestionRepository;
+import com.example.AssessmentService.service.AssessmentService;
+import com.example.AssessmentService.utils.AssessmentUtil;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@ActiveProfiles("h2")
+@Import({CacheConfig.class, AssessmentService.class, AssessmentUtil.class})
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class AssessmentServiceCacheTest {
+
+    @Autowired
+    private AssessmentService assessmentService;
+
+    @Autowired
+    private AssessmentRepository assessmentRepository;
+
+    @Autowired
+    private QuestionRepository questionRepository;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private CacheGenerations cacheGenerations;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    private Assessment assessment;
+
+    @BeforeEach
+    void setUp() {
+        QuestionRequest question = new QuestionRequest();
+        question.setDescription("What is a JVM?");
+        question.setAnswers(List.of(new AnswerDTO("A virtual machine", "Correct")));
+        AssessmentDTO request = new AssessmentDTO();
+        request.setSetName("Java");
+        request.setDomain("Backend");
+        request.setQuestions(List.of(question));
+
+        assessment = assessmentService.createAssessment(request);
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        assessmentRepository.deleteAll();
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+    }
+
+    @Test
+    void getQuestionsSetId_shouldServeRepeatedReadsFromCache() {
+        List<Question> first = assessmentService.getQuestionsSetId(assessment.getSetid());
+        long queries = statistics.getPrepareStatementCount();
+        List<Question> second = assessmentService.getQuestionsSetId(assessment.getSetid());
+
+        assertEquals(first, second);
+        assertEquals(queries, statistics.getPrepareStatementCount());
+        assertEquals(1, second.get(0).getAnswers().size());
+    }
+
+    @Test
+    void getQuestionsSetIds_shouldFillCacheForSingleSetReads() {
+        Map<Long, List<Question>> sets = assessmentService.getQuestionsSetIds(List.of(assessment.getSetid(), -1L));
+        long queries = statistics.getPrepareStatementCount();
+
+        assertEquals(1, sets.size());
+        assertEquals(sets.get(assessment.getSetid()), assessmentService.getQuestionsSetId(assessment.getSetid()));
+        assertEquals(queries, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void updateQuestion_shouldInvalidateBothKeys() {
+        long questionId = assessment.getQuestions().get(0).getQuestionId();
+        assessmentService.getQuestionsSetId(assessment.getSetid());
+        assessmentService.getQuestionsSetName("Java");
+
+        assessmentService.updateQuestion(assessment.getSetid(), questionId, List.of(new AnswerDTO("Bytecode runner", "Partly")));
+
+        assertEquals(2, assessmentService.getQuestionsSetId(assessment.getSetid()).get(0).getAnswers().size());
+        assertEquals(2, assessmentService.getQuestionsSetName("Java").get(0).getAnswers().size());
+    }
+
+    @Test
+    void addAnswers_shouldAppendToManyQuestionsInOneCall() {
+        QuestionRequest request = new QuestionRequest();
+        request.setDescription("What is bytecode?");
+        long first = assessment.getQuestions().get(0).getQuestionId();
+        long second = assessmentService.insertQuestion(assessment.getSetid(), request, null).getQuestionId();
+        assessmentService.getQuestionsSetId(assessment.getSetid());
+
+        Map<Long, String> results = assessmentService.addAnswers(assessment.getSetid(), Map.of(
+                first, List.of(new AnswerDTO("Runs bytecode", "Correct")),
+                second, List.of(new AnswerDTO("JVM instructions", "Correct"), new AnswerDTO("Machine code", "Wrong")),
+                -1L, List.of(new AnswerDTO("ignored", "ignored"))));
+
+        assertEquals("Question id is invalid", results.get(-1L));
+        List<Question> questions = assessmentService.getQuestionsSetId(assessment.getSetid());
+        assertEquals(2, questions.get(0).getAnswers().size());
+        assertEquals(2, questions.get(1).getAnswers().size());
+    }
+
+    @Test
+    void deleteQuestion_shouldInvalidateCachedSet() {
+        long questionId = assessment.getQuestions().get(0).getQuestionId();
+        assessmentService.getQuestionsSetId(assessment.getSetid());
+
+        assessmentService.deleteQuestion(assessment.getSetid(), questionId);
+
+        assertEquals(0, assessmentService.getQuestionsSetId(assessment.getSetid()).size());
+    }
+
+    @Test
+    void insertAndMoveQuestion_shouldKeepStableOrderWithSingleRowWrites() {
+        long first = assessment.getQuestions().get(0).getQuestionId();
+        QuestionRequest request = new QuestionRequest();
+        request.setDescription("What is bytecode?");
+        Question inserted = assessmentService.insertQuestion(assessment.getSetid(), request, 0);
+
+        assertEquals(List.of(inserted.getQuestionId(), first), questionIds());
+        Long firstPosition = questionRepository.findSlotsInSet(assessment.getSetid()).get(1).getPosition();
+
+        assessmentService.moveQuestion(assessment.getSetid(), inserted.getQuestionId(), 1);
+
+        assertEquals(List.of(first, inserted.getQuestionId()), questionIds());
+        assertEquals(firstPosition, questionRepository.findSlotsInSet(assessment.getSetid()).get(0).getPosition());
+    }
+
+    private List<Long> questionIds() {
+        return assessmentService.getQuestionsSetId(assessment.getSetid()).stream().map(Question::getQuestionId).toList();
+    }
+
+    @Test
+    void getQuestionsSetIdPayload_shouldReuseBytesUntilSetIsMutated() {
+        long questionId = assessment.getQuestions().get(0).getQuestionId();
+        QuestionSetPayload first = assessmentService.getQuestionsSetIdPayload(assessment.getSetid());
+
+        assertSame(first, assessmentService.getQuestionsSetIdPayload(assessment.getSetid()));
+
+        assessmentService.updateQuestion(assessment.getSetid(), questionId, List.of(new AnswerDTO("Bytecode runner", "Partly")));
+
+        QuestionSetPayload regenerated = assessmentService.getQuestionsSetIdPayload(assessment.getSetid());
+        assertNotSame(first, regenerated);
+        assertTrue(new String(regenerated.getJson()).contains("Bytecode runner"));
+    }
+
+    @Test
+    void updateQuestion_shouldIgnoreOldSetPutBackByEarlierReader() {
+        long questionId = assessment.getQuestions().get(0).getQuestionId();
+        List<Question> old = assessmentService.getQuestionsSetId(assessment.getSetid());
+        String oldKey = cacheGenerations.key(assessment.getSetid());
+
+        assessmentService.updateQuestion(assessment.getSetid(), questionId, List.of(new AnswerDTO("Bytecode runner", "Partly")));
+        // A reader that loaded the set before the commit stores it after the eviction
+        cacheManager.getCache(CacheConfig.QUESTIONS_BY_SET_ID).put(oldKey, old);
+
+        assertEquals(2, assessmentService.getQuestionsSetId(assessment.getSetid()).get(0).getAnswers().size());
+    }
+
+    @Test
+    void getQuestionsSetIdPayload_shouldEncodeFromCachedQuestionSet() {
+        assessmentService.getQuestionsSetId(assessment.getSetid());
+        long queries = statistics.getPrepareStatementCount();
+
+        assessmentService.getQuestionsSetIdPayload(assessment.getSetid());
+
+        assertEquals(queries, statistics.getPrepareStatementCount());
+    }
+}
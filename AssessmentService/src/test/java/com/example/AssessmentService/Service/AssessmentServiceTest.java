@@ -1,7 +1,12 @@
 package com.example.AssessmentService.Service;
 
+import com.example.AssessmentService.config.CacheConfig;
+import com.example.AssessmentService.config.CacheGenerations;
 import com.example.AssessmentService.dto.AnswerDTO;
 import com.example.AssessmentService.dto.AssessmentDTO;
+import com.example.AssessmentService.dto.AssessmentPage;
+import com.example.AssessmentService.dto.QuestionRequest;
+import com.example.AssessmentService.dto.QuestionSetPayload;
 import com.example.AssessmentService.exception.ResourceNotFoundException;
 import com.example.AssessmentService.model.Answer;
 import com.example.AssessmentService.model.Assessment;
@@ -9,20 +14,34 @@ import com.example.AssessmentService.model.Question;
 import com.example.AssessmentService.repo.AnswerRepository;
 import com.example.AssessmentService.repo.AssessmentRepository;
 import com.example.AssessmentService.repo.QuestionRepository;
+import com.example.AssessmentService.repo.QuestionSlot;
 import com.example.AssessmentService.service.AssessmentService;
 import com.example.AssessmentService.utils.AssessmentUtil;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.support.SimpleValueWrapper;
+import org.springframework.data.domain.Limit;
 import org.springframework.test.util.ReflectionTestUtils;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.zip.GZIPInputStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.Mockito.*;
 
 class AssessmentServiceTest {
@@ -42,11 +61,27 @@ class AssessmentServiceTest {
     @Mock
     private AssessmentUtil assessmentUtil;
 
+    @Mock
+    private EntityManager entityManager;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    @Mock
+    private CacheManager cacheManager;
+
+    @Mock
+    private Cache cache;
+
+    @Spy
+    private CacheGenerations cacheGenerations = new CacheGenerations();
+
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
         ReflectionTestUtils.setField(assessmentService, "setNameIsInvalid", "Set name is invalid");
         ReflectionTestUtils.setField(assessmentService, "questionIdIsInvalid", "Question id is invalid");
+        ReflectionTestUtils.setField(assessmentService, "gzipPayloads", true);
     }
 
     @Test
@@ -74,6 +109,68 @@ class AssessmentServiceTest {
         assertEquals(assessments, result);
     }
 
+    @Test
+    void getAssessmentPage_shouldReturnCursorWhenPageIsFull() {
+        List<Long> ids = List.of(3L, 5L);
+        List<Assessment> assessments = List.of(new Assessment(), new Assessment());
+        when(assessmentRepository.findSetidPage(0L, Limit.of(2))).thenReturn(ids);
+        when(assessmentRepository.findBySetidInOrderBySetid(ids)).thenReturn(assessments);
+
+        AssessmentPage page = assessmentService.getAssessmentPage(null, null, 2);
+
+        assertEquals(assessments, page.getAssessments());
+        assertEquals(5L, page.getNextCursor());
+    }
+
+    @Test
+    void getAssessmentPage_shouldFilterByDomainAndEndOnPartialPage() {
+        List<Long> ids = List.of(7L);
+        when(assessmentRepository.findSetidPageByDomain(5L, "Java", Limit.of(10))).thenReturn(ids);
+        when(assessmentRepository.findBySetidInOrderBySetid(ids)).thenReturn(List.of(new Assessment()));
+
+        AssessmentPage page = assessmentService.getAssessmentPage(5L, "Java", 10);
+
+        assertEquals(1, page.getAssessments().size());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    void getAssessmentPage_shouldCapPageSize() {
+        when(assessmentRepository.findSetidPage(anyLong(), any(Limit.class))).thenReturn(new ArrayList<>());
+
+        AssessmentPage page = assessmentService.getAssessmentPage(null, null, 10_000);
+
+        assertTrue(page.getAssessments().isEmpty());
+        verify(assessmentRepository).findSetidPage(0L, Limit.of(AssessmentService.MAX_PAGE_SIZE));
+        verify(assessmentRepository, never()).findBySetidInOrderBySetid(any());
+    }
+
+    @Test
+    void exportCatalog_shouldWriteOneLinePerSetAndClearEachChunk() throws Exception {
+        Assessment first = new Assessment();
+        first.setSetid(1L);
+        first.setSetName("Java");
+        first.setQuestions(new ArrayList<>());
+        Assessment second = new Assessment();
+        second.setSetid(2L);
+        second.setSetName("Spring");
+        second.setQuestions(new ArrayList<>());
+
+        when(assessmentRepository.findSetidPage(0L, Limit.of(AssessmentService.EXPORT_CHUNK_SIZE))).thenReturn(List.of(1L, 2L));
+        when(assessmentRepository.findSetidPage(2L, Limit.of(AssessmentService.EXPORT_CHUNK_SIZE))).thenReturn(new ArrayList<>());
+        when(assessmentRepository.findBySetidInOrderBySetid(List.of(1L, 2L))).thenReturn(List.of(first, second));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long exported = assessmentService.exportCatalog(out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, exported);
+        assertEquals(2, lines.length);
+        assertEquals("Java", objectMapper.readTree(lines[0]).get("setName").asText());
+        assertEquals("Spring", objectMapper.readTree(lines[1]).get("setName").asText());
+        verify(entityManager, times(1)).clear();
+    }
+
     @Test
     void updateQuestion_shouldUpdateQuestion() {
         Long setId = 1L;
@@ -83,16 +180,78 @@ class AssessmentServiceTest {
         Assessment assessment = new Assessment();
         Question question = new Question();
         question.setQuestionId(questionId);
-        assessment.setQuestions(Collections.singletonList(question));
 
         when(assessmentRepository.findById(setId)).thenReturn(Optional.of(assessment));
-        when(questionRepository.save(any(Question.class))).thenReturn(question);
+        when(questionRepository.existsInSet(setId, questionId)).thenReturn(true);
+        when(questionRepository.getReferenceById(questionId)).thenReturn(question);
 
         String result = assessmentService.updateQuestion(setId, questionId, answerDtos);
 
         assertEquals("Question updated successfully", result);
-        verify(assessmentRepository, times(1)).save(assessment);
-        verify(questionRepository, times(1)).save(question);
+        verify(answerRepository, times(1)).saveAll(argThat(answers -> {
+            Answer answer = ((List<Answer>) answers).get(0);
+            return answer.getQuestion() == question && "Answer".equals(answer.getValue());
+        }));
+        verify(assessmentRepository, never()).save(any(Assessment.class));
+        verify(questionRepository, never()).save(any(Question.class));
+    }
+
+    @Test
+    void addAnswers_shouldInsertAnswersForMembersAndReportOthers() {
+        Long setId = 1L;
+        Question question = new Question();
+        question.setQuestionId(2L);
+        Map<Long, List<AnswerDTO>> request = new LinkedHashMap<>();
+        request.put(2L, List.of(new AnswerDTO("a", "s"), new AnswerDTO("b", "s")));
+        request.put(3L, List.of(new AnswerDTO("c", "s")));
+
+        when(assessmentRepository.findById(setId)).thenReturn(Optional.of(new Assessment()));
+        when(questionRepository.findIdsInSet(setId, request.keySet())).thenReturn(List.of(2L));
+        when(questionRepository.getReferenceById(2L)).thenReturn(question);
+
+        Map<Long, String> result = assessmentService.addAnswers(setId, request);
+
+        assertEquals("2 answers added", result.get(2L));
+        assertEquals("Question id is invalid", result.get(3L));
+        verify(questionRepository, times(1)).findIdsInSet(anyLong(), any());
+        verify(answerRepository, times(1)).saveAll(argThat(answers -> ((List<Answer>) answers).size() == 2));
+    }
+
+    @Test
+    void addAnswers_shouldThrowExceptionIfAssessmentNotFound() {
+        when(assessmentRepository.findById(1L)).thenReturn(Optional.empty());
+
+        ResourceNotFoundException exception = assertThrows(ResourceNotFoundException.class, () -> {
+            assessmentService.addAnswers(1L, Map.of(2L, List.of()));
+        });
+
+        assertEquals("Set name is invalid", exception.getMessage());
+        verify(answerRepository, never()).saveAll(any());
+    }
+
+    @Test
+    void updateQuestion_shouldEvictCachedSetByIdAndName() {
+        Long setId = 1L;
+        Long questionId = 1L;
+        Assessment assessment = new Assessment();
+        assessment.setSetName("Java");
+
+        when(assessmentRepository.findById(setId)).thenReturn(Optional.of(assessment));
+        when(questionRepository.existsInSet(setId, questionId)).thenReturn(true);
+        when(cacheManager.getCache(anyString())).thenReturn(cache);
+        String idKey = cacheGenerations.key(setId);
+        String nameKey = cacheGenerations.key("Java");
+
+        assessmentService.updateQuestion(setId, questionId, Collections.emptyList());
+
+        verify(cacheManager).getCache(CacheConfig.QUESTIONS_BY_SET_ID);
+        verify(cacheManager).getCache(CacheConfig.QUESTIONS_BY_SET_NAME);
+        verify(cacheManager).getCache(CacheConfig.QUESTION_PAYLOADS_BY_SET_ID);
+        verify(cache).evict(idKey);
+        verify(cache).evict(nameKey);
+        // Without a transaction the old keys are retired at once
+        assertNotEquals(idKey, cacheGenerations.key(setId));
+        assertNotEquals(nameKey, cacheGenerations.key("Java"));
     }
 
     @Test
@@ -129,19 +288,18 @@ class AssessmentServiceTest {
         Long setId = 1L;
         Long questionId = 1L;
 
-        Question question = new Question();
-        question.setQuestionId(questionId);
-
         Assessment assessment = new Assessment();
-        assessment.setQuestions(new ArrayList<>(Collections.singletonList(question)));
 
         when(assessmentRepository.findById(setId)).thenReturn(Optional.of(assessment));
+        when(questionRepository.existsInSet(setId, questionId)).thenReturn(true);
 
         Map<String, String> result = assessmentService.deleteQuestion(setId, questionId);
 
         assertEquals("Question deleted successfully", result.get("message"));
-        verify(questionRepository, times(1)).deleteById(questionId);
-        verify(assessmentRepository, times(1)).save(assessment);
+        verify(questionRepository, times(1)).unlinkFromSet(setId, questionId);
+        verify(answerRepository, times(1)).deleteByQuestionId(questionId);
+        verify(questionRepository, times(1)).deleteByQuestionId(questionId);
+        verify(assessmentRepository, never()).save(any(Assessment.class));
     }
 
     @Test
@@ -175,6 +333,94 @@ class AssessmentServiceTest {
 
 
 
+    @Test
+    void insertQuestion_shouldTakeMidpointBetweenNeighbours() {
+        Long setId = 1L;
+        Question question = new Question();
+        question.setQuestionId(9L);
+        QuestionRequest request = new QuestionRequest();
+
+        when(assessmentRepository.findById(setId)).thenReturn(Optional.of(new Assessment()));
+        when(questionRepository.findSlotsInSet(setId)).thenReturn(List.of(slot(1L, 1024L), slot(2L, 2048L)));
+        when(assessmentUtil.mapToQuestion(request)).thenReturn(question);
+        when(questionRepository.save(question)).thenReturn(question);
+
+        assessmentService.insertQuestion(setId, request, 1);
+
+        assertEquals(1536L, question.getPosition());
+        verify(questionRepository, times(1)).linkToSet(setId, 9L);
+        verify(questionRepository, never()).updatePosition(anyLong(), anyLong());
+    }
+
+    @Test
+    void insertQuestion_shouldAppendWhenNoIndexGiven() {
+        Long setId = 1L;
+        Question question = new Question();
+        QuestionRequest request = new QuestionRequest();
+
+        when(assessmentRepository.findById(setId)).thenReturn(Optional.of(new Assessment()));
+        when(questionRepository.findSlotsInSet(setId)).thenReturn(List.of(slot(1L, 1024L), slot(2L, 2048L)));
+        when(assessmentUtil.mapToQuestion(request)).thenReturn(question);
+        when(questionRepository.save(question)).thenReturn(question);
+
+        assessmentService.insertQuestion(setId, request, null);
+
+        assertEquals(3072L, question.getPosition());
+    }
+
+    @Test
+    void moveQuestion_shouldOnlyUpdateMovedQuestion() {
+        Long setId = 1L;
+        when(assessmentRepository.findById(setId)).thenReturn(Optional.of(new Assessment()));
+        when(questionRepository.existsInSet(setId, 3L)).thenReturn(true);
+        when(questionRepository.findSlotsInSet(setId)).thenReturn(List.of(slot(1L, 1024L), slot(2L, 2048L), slot(3L, 3072L)));
+
+        Map<String, String> result = assessmentService.moveQuestion(setId, 3L, 0);
+
+        assertEquals("Question moved successfully", result.get("message"));
+        verify(questionRepository, times(1)).updatePosition(3L, 0L);
+        verify(questionRepository, times(1)).updatePosition(anyLong(), anyLong());
+    }
+
+    @Test
+    void moveQuestion_shouldRenumberWhenGapIsExhausted() {
+        Long setId = 1L;
+        when(assessmentRepository.findById(setId)).thenReturn(Optional.of(new Assessment()));
+        when(questionRepository.existsInSet(setId, 3L)).thenReturn(true);
+        when(questionRepository.findSlotsInSet(setId)).thenReturn(List.of(slot(1L, 10L), slot(2L, 11L), slot(3L, 12L)));
+
+        assessmentService.moveQuestion(setId, 3L, 1);
+
+        verify(questionRepository).updatePosition(1L, 1024L);
+        verify(questionRepository).updatePosition(2L, 2048L);
+        verify(questionRepository).updatePosition(3L, 1536L);
+    }
+
+    @Test
+    void moveQuestion_shouldThrowExceptionIfQuestionNotInSet() {
+        when(assessmentRepository.findById(1L)).thenReturn(Optional.of(new Assessment()));
+
+        ResourceNotFoundException exception = assertThrows(ResourceNotFoundException.class, () -> {
+            assessmentService.moveQuestion(1L, 3L, 0);
+        });
+
+        assertEquals("Question id is invalid", exception.getMessage());
+    }
+
+    private static QuestionSlot slot(long questionId, Long position) {
+        return new QuestionSlot() {
+            @Override
+            public long getQuestionId() {
+                return questionId;
+            }
+
+            @Override
+            public Long getPosition() {
+                return position;
+            }
+        };
+    }
+
     @Test
     void getQuestionsSetName_shouldThrowExceptionIfAssessmentNotFound() {
         String setName = "Test Set";
@@ -199,6 +445,54 @@ class AssessmentServiceTest {
         assertEquals("set id is invalid", exception.getMessage());
     }
 
+    @Test
+    void getQuestionsSetIds_shouldLoadOnlyUncachedSetsInOneQuery() {
+        List<Question> cachedQuestions = List.of(new Question());
+        Assessment uncached = new Assessment();
+        uncached.setSetid(2L);
+        uncached.setQuestions(List.of(new Question()));
+
+        when(cacheManager.getCache(CacheConfig.QUESTIONS_BY_SET_ID)).thenReturn(cache);
+        when(cache.get(cacheGenerations.key(1L))).thenReturn(new SimpleValueWrapper(cachedQuestions));
+        when(assessmentRepository.findBySetidInOrderBySetid(List.of(2L, 3L))).thenReturn(List.of(uncached));
+
+        Map<Long, List<Question>> result = assessmentService.getQuestionsSetIds(List.of(1L, 2L, 3L, 2L));
+
+        assertEquals(cachedQuestions, result.get(1L));
+        assertEquals(uncached.getQuestions(), result.get(2L));
+        assertFalse(result.containsKey(3L));
+        verify(cache).put(cacheGenerations.key(2L), result.get(2L));
+    }
+
+    @Test
+    void getQuestionsSetIds_shouldRejectTooManyIds() {
+        List<Long> ids = new ArrayList<>();
+        for (long i = 0; i <= AssessmentService.MAX_BATCH_SET_IDS; i++) {
+            ids.add(i);
+        }
+
+        assertThrows(IllegalArgumentException.class, () -> assessmentService.getQuestionsSetIds(ids));
+        verify(assessmentRepository, never()).findBySetidInOrderBySetid(any());
+    }
+
+    @Test
+    void getQuestionsSetIdPayload_shouldEncodeJsonAndGzip() throws Exception {
+        Question question = new Question();
+        question.setQuestionId(4L);
+        question.setDescription("What is a JVM?");
+        question.setAnswers(new ArrayList<>());
+        Assessment assessment = new Assessment();
+        assessment.setQuestions(List.of(question));
+        when(assessmentRepository.findBySetid(1L)).thenReturn(Optional.of(assessment));
+
+        QuestionSetPayload payload = assessmentService.getQuestionsSetIdPayload(1L);
+
+        assertEquals("What is a JVM?", objectMapper.readTree(payload.getJson()).get(0).get("description").asText());
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(payload.getGzip()))) {
+            assertArrayEquals(payload.getJson(), gzip.readAllBytes());
+        }
+    }
+
     @Test
     void fetchques_shouldReturnQuestionIfExists() {
         Long questionId = 1L;
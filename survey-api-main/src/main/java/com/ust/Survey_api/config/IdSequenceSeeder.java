@@ -0,0 +1,45 @@
+package com.ust.Survey_api.config;
+
+import com.ust.Survey_api.model.IdSequences;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+// Moves each id sequence past the ids already handed out by the former AUTO_INCREMENT columns, before any request is served
+// AssessmentService keeps its own copy: the services are separate builds with no shared module
+@Component
+public class IdSequenceSeeder implements SmartInitializingSingleton {
+
+    private static final Map<String, String> MAX_ID_QUERIES = Map.of(
+            IdSequences.SURVEY, "select coalesce(max(surveyid), 0) from dashboard",
+            IdSequences.EMAIL, "select coalesce(max(id), 0) from email");
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        MAX_ID_QUERIES.forEach(this::seed);
+    }
+
+    void seed(String segment, String maxIdQuery) {
+        long next = jdbcTemplate.queryForObject(maxIdQuery, Long.class) + 1;
+        Integer rows = jdbcTemplate.queryForObject(
+                "select count(*) from " + IdSequences.TABLE + " where " + IdSequences.NAME_COLUMN + " = ?", Integer.class, segment);
+        if (rows == null || rows == 0) {
+            try {
+                jdbcTemplate.update("insert into " + IdSequences.TABLE + " (" + IdSequences.NAME_COLUMN + ", "
+                        + IdSequences.VALUE_COLUMN + ") values (?, ?)", segment, next);
+                return;
+            } catch (DuplicateKeyException e) {
+                // Another instance created the row first; fall through and raise it if needed
+            }
+        }
+        jdbcTemplate.update("update " + IdSequences.TABLE + " set " + IdSequences.VALUE_COLUMN + " = ? where "
+                + IdSequences.NAME_COLUMN + " = ? and " + IdSequences.VALUE_COLUMN + " < ?", next, segment, next);
+    }
+}
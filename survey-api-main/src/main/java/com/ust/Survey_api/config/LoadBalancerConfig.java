@@ -0,0 +1,12 @@
+package com.ust.Survey_api.config;
+
+import com.ust.Survey_api.loadbalancer.AssessmentLoadBalancerConfiguration;
+import org.springframework.cloud.loadbalancer.annotation.LoadBalancerClient;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@LoadBalancerClient(name = LoadBalancerConfig.ASSESSMENT, configuration = AssessmentLoadBalancerConfiguration.class)
+public class LoadBalancerConfig {
+
+    public static final String ASSESSMENT = "Assessment";
+}
@@ -0,0 +1,12 @@
+package com.ust.Survey_api.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+// Background jobs (survey expiry); survey.scheduling.enabled=false turns them off, e.g. on extra instances
+@Configuration
+@EnableScheduling
+@ConditionalOnProperty(name = "survey.scheduling.enabled", matchIfMissing = true)
+public class SchedulingConfig {
+}
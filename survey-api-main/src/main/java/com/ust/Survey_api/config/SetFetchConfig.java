@@ -0,0 +1,59 @@
+package com.ust.Survey_api.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+
+@Configuration
+public class SetFetchConfig {
+
+    public static final String SET_FETCH_EXECUTOR = "setFetchExecutor";
+
+    @Value("${survey.set-fetch.concurrency:4}")
+    private int concurrency;
+
+    @Value("${survey.set-fetch.queue-capacity:100}")
+    private int queueCapacity;
+
+    // Shared by all requests, so at most `concurrency` upstream set calls are in flight at once. Past `queueCapacity`
+    // waiting calls the caller runs the call itself, which slows intake instead of queueing without bound
+    @Bean(SET_FETCH_EXECUTOR)
+    @ConditionalOnThreading(Threading.PLATFORM)
+    public ThreadPoolTaskExecutor setFetchExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(concurrency);
+        executor.setMaxPoolSize(concurrency);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setThreadNamePrefix("set-fetch-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        return executor;
+    }
+
+    // One virtual thread per call. A call waits for one of `concurrency` permits on its own thread, like a task queued
+    // for the pool above. Past `queueCapacity` waiting calls submitting blocks the caller, the same bound as above
+    @Bean(SET_FETCH_EXECUTOR)
+    @ConditionalOnThreading(Threading.VIRTUAL)
+    public SimpleAsyncTaskExecutor virtualSetFetchExecutor() {
+        Semaphore permits = new Semaphore(concurrency, true);
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("set-fetch-");
+        executor.setVirtualThreads(true);
+        executor.setConcurrencyLimit(concurrency + queueCapacity);
+        executor.setTaskDecorator(task -> () -> {
+            permits.acquireUninterruptibly();
+            try {
+                task.run();
+            } finally {
+                permits.release();
+            }
+        });
+        return executor;
+    }
+}
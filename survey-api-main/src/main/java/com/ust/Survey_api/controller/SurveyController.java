@@ -1,19 +1,33 @@
 package com.ust.Survey_api.controller;
 
 
+import com.ust.Survey_api.dto.EmailDuplicate;
+import com.ust.Survey_api.dto.EmailImportResult;
+import com.ust.Survey_api.dto.QuestionResult;
+import com.ust.Survey_api.dto.ResponseSubmission;
+import com.ust.Survey_api.exception.InvalidResponseException;
+import com.ust.Survey_api.exception.ResponseQueueFullException;
+import com.ust.Survey_api.exception.SetDataUnavailableException;
 import com.ust.Survey_api.exception.SetNotFoundException;
 import com.ust.Survey_api.feign.FullResponse;
 import com.ust.Survey_api.feign.SetNameDto;
 import com.ust.Survey_api.feign.SurveyRequestDto;
 import com.ust.Survey_api.model.Email;
+import com.ust.Survey_api.model.Status;
 import com.ust.Survey_api.model.Survey;
 import com.ust.Survey_api.repository.SurveyRepository;
+import com.ust.Survey_api.service.EmailImporter;
 import com.ust.Survey_api.service.SurveyService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -48,7 +62,7 @@ public class SurveyController {
         if(surveyOptional == null){
             throw new SetNotFoundException("Invalid surveyId");
         }
-        return ResponseEntity.ok(surveyService.getSurveyById(surveyid));
+        return ResponseEntity.ok(surveyOptional);
     }
 
 
@@ -70,10 +84,101 @@ public class SurveyController {
         return ResponseEntity.ok(surveyService.getEmails(surveyid));
     }
 
+    // For large recipient lists: the body is read as it arrives instead of being bound to a List first
+    @PostMapping(value = "/survey/{surveyid}/emails/import", consumes = {MediaType.APPLICATION_NDJSON_VALUE, "text/csv"})
+    public ResponseEntity<EmailImportResult> importEmails(@PathVariable Long surveyid,
+                                                          @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+                                                          InputStream body) {
+        MediaType mediaType = MediaType.parseMediaType(contentType);
+        EmailImporter.Format format = MediaType.APPLICATION_NDJSON.includes(mediaType) ? EmailImporter.Format.NDJSON : EmailImporter.Format.CSV;
+        InputStreamReader reader = new InputStreamReader(body, mediaType.getCharset() != null ? mediaType.getCharset() : StandardCharsets.UTF_8);
+        return ResponseEntity.ok(surveyService.importEmails(surveyid, reader, format));
+    }
+
+    // Addresses stored more than once for the survey (case-insensitive), with the ids of their rows
+    @GetMapping("/survey/{surveyid}/emails/duplicates")
+    public ResponseEntity<List<EmailDuplicate>> getDuplicateEmails(@PathVariable Long surveyid) {
+        return ResponseEntity.ok(surveyService.findDuplicateEmails(surveyid));
+    }
+
+    // Deletes all but the oldest row of each duplicate address, answers how many rows were deleted
+    @DeleteMapping("/survey/{surveyid}/emails/duplicates")
+    public ResponseEntity<Integer> removeDuplicateEmails(@PathVariable Long surveyid) {
+        return ResponseEntity.ok(surveyService.removeDuplicateEmails(surveyid));
+    }
+
+    // Moves every recipient of the survey to `status` in one UPDATE, optionally only those currently in `from`
+    // and/or with addresses at `domain`; answers how many rows changed
+    @PutMapping("/survey/{surveyid}/emails/status")
+    public ResponseEntity<Integer> updateEmailStatus(@PathVariable Long surveyid, @RequestParam Status status,
+                                                     @RequestParam(required = false) Status from,
+                                                     @RequestParam(required = false) String domain) {
+        return ResponseEntity.ok(surveyService.updateEmailStatus(surveyid, status, from, domain));
+    }
+
+    // Same for the listed addresses only (case-insensitive)
+    @PutMapping("/survey/{surveyid}/emails/status/addresses")
+    public ResponseEntity<Integer> updateEmailStatusByAddress(@PathVariable Long surveyid, @RequestParam Status status,
+                                                              @RequestBody List<String> emails) {
+        return ResponseEntity.ok(surveyService.updateEmailStatus(surveyid, status, emails));
+    }
+
+    // Accepted (202) once validated and queued; written shortly after in a batch. 429 when the queue is full.
+    @PostMapping("/survey/{surveyid}/responses")
+    public ResponseEntity<Void> submitResponse(@PathVariable Long surveyid, @RequestBody ResponseSubmission submission) {
+        surveyService.submitResponse(surveyid, submission);
+        return ResponseEntity.accepted().build();
+    }
+
+    // Count per answer option of every question, from the running tallies
+    @GetMapping("/survey/{surveyid}/results")
+    public ResponseEntity<List<QuestionResult>> getResults(@PathVariable Long surveyid) {
+        return ResponseEntity.ok(surveyService.getResults(surveyid));
+    }
+
+    // Recovery: recounts the survey's tallies from the stored responses, answers how many answers were counted
+    @PostMapping("/survey/{surveyid}/results/rebuild")
+    public ResponseEntity<Long> rebuildResults(@PathVariable Long surveyid) {
+        return ResponseEntity.ok(surveyService.rebuildResults(surveyid));
+    }
+
+    // Same for every survey with responses, answers how many surveys were rebuilt
+    @PostMapping("/results/rebuild")
+    public ResponseEntity<Integer> rebuildAllResults() {
+        return ResponseEntity.ok(surveyService.rebuildAllResults());
+    }
+
+    // Re-captures the survey's set data from AssessmentService; reads keep using the stored snapshot until then
+    @PostMapping("/survey/{surveyid}/snapshot/refresh")
+    public ResponseEntity<FullResponse> refreshSnapshot(@PathVariable Long surveyid) {
+        return ResponseEntity.ok(surveyService.refreshSnapshot(surveyid));
+    }
+
+    // Same for every survey built on the set, answers how many snapshots were refreshed
+    @PostMapping("/snapshots/set/{setid}/refresh")
+    public ResponseEntity<Integer> refreshSnapshots(@PathVariable Long setid) {
+        return ResponseEntity.ok(surveyService.refreshSnapshots(setid));
+    }
+
 
     @ExceptionHandler(SetNotFoundException.class)
     @ResponseStatus(HttpStatus.OK)
     public ResponseEntity<String> handleNotFoundException(SetNotFoundException ex) {
         return ResponseEntity.status(HttpStatus.OK).body(ex.getMessage());
     }
-}
\ No newline at end of file
+
+    @ExceptionHandler(SetDataUnavailableException.class)
+    public ResponseEntity<String> handleSetDataUnavailableException(SetDataUnavailableException ex) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(ex.getMessage());
+    }
+
+    @ExceptionHandler(InvalidResponseException.class)
+    public ResponseEntity<String> handleInvalidResponseException(InvalidResponseException ex) {
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(ex.getMessage());
+    }
+
+    @ExceptionHandler(ResponseQueueFullException.class)
+    public ResponseEntity<String> handleResponseQueueFullException(ResponseQueueFullException ex) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).header(HttpHeaders.RETRY_AFTER, "1").body(ex.getMessage());
+    }
+}
@@ -0,0 +1,14 @@
+package com.ust.Survey_api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AnswerCount {
+
+    private Long answerId;
+    private long count;
+}
@@ -0,0 +1,15 @@
+package com.ust.Survey_api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AnswerSelection {
+
+    // SetNameDto.questionId and one of its Answer.answerId
+    private Long questionId;
+    private Long answerId;
+}
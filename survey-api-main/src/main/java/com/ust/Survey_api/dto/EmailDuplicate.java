@@ -0,0 +1,18 @@
+package com.ust.Survey_api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EmailDuplicate {
+
+    // As stored on the oldest row
+    private String email;
+    // Ascending; cleanup keeps the first and deletes the rest
+    private List<Long> ids;
+}
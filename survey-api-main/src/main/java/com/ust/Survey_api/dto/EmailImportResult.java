@@ -0,0 +1,29 @@
+package com.ust.Survey_api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EmailImportResult {
+
+    private long imported;
+    private long rejected;
+    // Only the first survey.email-import.max-reported-rejects rows; `rejected` counts them all
+    private List<Reject> rejects = new ArrayList<>();
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Reject {
+        // 1-based line number in the uploaded body
+        private long line;
+        private String value;
+        private String reason;
+    }
+}
@@ -0,0 +1,18 @@
+package com.ust.Survey_api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class QuestionResult {
+
+    private Long questionId;
+    // Responses that answered this question
+    private long total;
+    private List<AnswerCount> answers;
+}
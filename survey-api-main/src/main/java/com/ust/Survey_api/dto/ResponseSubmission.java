@@ -0,0 +1,17 @@
+package com.ust.Survey_api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ResponseSubmission {
+
+    // The address the survey was sent to
+    private String email;
+    private List<AnswerSelection> answers;
+}
@@ -0,0 +1,7 @@
+package com.ust.Survey_api.exception;
+
+public class InvalidResponseException extends RuntimeException {
+    public InvalidResponseException(String message) {
+        super(message);
+    }
+}
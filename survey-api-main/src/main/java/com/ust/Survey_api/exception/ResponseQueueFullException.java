@@ -0,0 +1,7 @@
+package com.ust.Survey_api.exception;
+
+public class ResponseQueueFullException extends RuntimeException {
+    public ResponseQueueFullException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package com.ust.Survey_api.exception;
+
+public class SetDataUnavailableException extends RuntimeException {
+    public SetDataUnavailableException(String message) {
+        super(message);
+    }
+}
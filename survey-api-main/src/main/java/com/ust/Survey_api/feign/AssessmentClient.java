@@ -1,17 +1,28 @@
 package com.ust.Survey_api.feign;
 
 
+import com.ust.Survey_api.config.LoadBalancerConfig;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
-@FeignClient(name = "Assessment",url = "http://localhost:9000/")
+// Calls are spread across the instances listed under spring.cloud.discovery.client.simple.instances.Assessment
+@FeignClient(name = LoadBalancerConfig.ASSESSMENT)
 public interface AssessmentClient {
 
      @GetMapping("/assessments/set-id/{setid}")
      public ResponseEntity<List<SetNameDto>> getSet(@PathVariable Long setid);
 
+     // at most MAX_SET_IDS per call; unknown setids are absent from the map
+     @GetMapping("/assessments")
+     public ResponseEntity<Map<Long, List<SetNameDto>>> getSets(@RequestParam("ids") Collection<Long> setids);
+
+     int MAX_SET_IDS = 100;
+
 }
@@ -0,0 +1,43 @@
+package com.ust.Survey_api.loadbalancer;
+
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.support.LoadBalancerClientFactory;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.env.Environment;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.web.client.RestClient;
+
+import java.time.Duration;
+
+// Beans of the AssessmentService load-balancer child context. Deliberately not a @Configuration, so component
+// scanning leaves it to @LoadBalancerClient in LoadBalancerConfig. The child context has no Duration conversion,
+// hence the parsing by hand.
+public class AssessmentLoadBalancerConfiguration {
+
+    // Instances come from spring.cloud.discovery.client.simple.instances; one that fails or is slower than
+    // health-check-timeout on its health endpoint is left out until it passes again
+    @Bean
+    public ServiceInstanceListSupplier assessmentInstanceSupplier(
+            ConfigurableApplicationContext context, Environment environment) {
+        Duration healthCheckTimeout = Duration.parse(environment.getProperty("survey.assessment.health-check-timeout", "PT1S"));
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout(healthCheckTimeout);
+        requestFactory.setReadTimeout(healthCheckTimeout);
+        return ServiceInstanceListSupplier.builder()
+                .withBlockingDiscoveryClient()
+                .withBlockingHealthChecks(RestClient.builder().requestFactory(requestFactory).build())
+                .build(context);
+    }
+
+    @Bean
+    public LeastLoadedLoadBalancer assessmentLoadBalancer(
+            Environment environment,
+            LoadBalancerClientFactory loadBalancerClientFactory) {
+        Duration failurePenalty = Duration.parse(environment.getProperty("survey.assessment.failure-penalty", "PT5S"));
+        Duration idleDecay = Duration.parse(environment.getProperty("survey.assessment.idle-decay", "PT1S"));
+        String serviceId = environment.getProperty(LoadBalancerClientFactory.PROPERTY_NAME);
+        return new LeastLoadedLoadBalancer(
+                loadBalancerClientFactory.getLazyProvider(serviceId, ServiceInstanceListSupplier.class), failurePenalty, idleDecay);
+    }
+}
@@ -0,0 +1,134 @@
+package com.ust.Survey_api.loadbalancer;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.CompletionContext;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.client.loadbalancer.EmptyResponse;
+import org.springframework.cloud.client.loadbalancer.LoadBalancerLifecycle;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.client.loadbalancer.TimedRequestContext;
+import org.springframework.cloud.loadbalancer.core.NoopServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.core.ReactorServiceInstanceLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Sends each call to the instance with the lowest (requests in flight + 1) x average latency, so busy and slow
+// instances get less traffic. Failed calls count as failurePenalty of latency. An instance's average fades while it
+// gets no calls, to 1/e of its value every idleDecay, so one that was slow once is tried again instead of being
+// starved forever. It also receives the lifecycle callbacks of every call it routes, which is where the in-flight
+// counts and latencies come from.
+public class LeastLoadedLoadBalancer implements ReactorServiceInstanceLoadBalancer,
+        LoadBalancerLifecycle<Object, Object, ServiceInstance> {
+
+    // Weight of the newest call in the latency average
+    private static final double ALPHA = 0.3;
+
+    private final ObjectProvider<ServiceInstanceListSupplier> supplierProvider;
+
+    private final long failurePenaltyNanos;
+
+    private final double idleDecayNanos;
+
+    private final Map<String, Stats> stats = new ConcurrentHashMap<>();
+
+    public LeastLoadedLoadBalancer(ObjectProvider<ServiceInstanceListSupplier> supplierProvider, Duration failurePenalty,
+                                   Duration idleDecay) {
+        this.supplierProvider = supplierProvider;
+        this.failurePenaltyNanos = failurePenalty.toNanos();
+        this.idleDecayNanos = Math.max(1, idleDecay.toNanos());
+    }
+
+    @Override
+    public Mono<Response<ServiceInstance>> choose(Request request) {
+        ServiceInstanceListSupplier supplier = supplierProvider.getIfAvailable(NoopServiceInstanceListSupplier::new);
+        return supplier.get(request).next().map(this::choose);
+    }
+
+    Response<ServiceInstance> choose(List<ServiceInstance> instances) {
+        List<ServiceInstance> best = new ArrayList<>();
+        double bestScore = Double.MAX_VALUE;
+        for (ServiceInstance instance : instances) {
+            double score = stats(instance).score(idleDecayNanos);
+            if (score < bestScore) {
+                best.clear();
+                bestScore = score;
+            }
+            if (score == bestScore) {
+                best.add(instance);
+            }
+        }
+        if (best.isEmpty()) {
+            return new EmptyResponse();
+        }
+        return new DefaultResponse(best.get(ThreadLocalRandom.current().nextInt(best.size())));
+    }
+
+    @Override
+    public void onStart(Request<Object> request) {
+    }
+
+    @Override
+    public void onStartRequest(Request<Object> request, Response<ServiceInstance> lbResponse) {
+        if (!lbResponse.hasServer()) {
+            return;
+        }
+        stats(lbResponse.getServer()).outstanding.incrementAndGet();
+        if (request.getContext() instanceof TimedRequestContext context) {
+            context.setRequestStartTime(System.nanoTime());
+        }
+    }
+
+    @Override
+    public void onComplete(CompletionContext<Object, ServiceInstance, Object> completionContext) {
+        Response<ServiceInstance> lbResponse = completionContext.getLoadBalancerResponse();
+        if (lbResponse == null || !lbResponse.hasServer()) {
+            return;
+        }
+        Stats instanceStats = stats(lbResponse.getServer());
+        instanceStats.outstanding.decrementAndGet();
+
+        long latency = 0;
+        if (completionContext.getLoadBalancerRequest().getContext() instanceof TimedRequestContext context
+                && context.getRequestStartTime() > 0) {
+            latency = System.nanoTime() - context.getRequestStartTime();
+        }
+        if (completionContext.status() == CompletionContext.Status.FAILED) {
+            latency = Math.max(latency, failurePenaltyNanos);
+        }
+        instanceStats.record(latency);
+    }
+
+    private Stats stats(ServiceInstance instance) {
+        return stats.computeIfAbsent(instance.getUri().toString(), uri -> new Stats());
+    }
+
+    private static class Stats {
+
+        private final AtomicInteger outstanding = new AtomicInteger();
+
+        // Zero until the first call completes, so a new instance is tried straight away
+        private volatile double averageNanos;
+
+        private volatile long recordedAt;
+
+        synchronized void record(long latencyNanos) {
+            averageNanos = averageNanos == 0 ? latencyNanos : ALPHA * latencyNanos + (1 - ALPHA) * averageNanos;
+            recordedAt = System.nanoTime();
+        }
+
+        double score(double idleDecayNanos) {
+            double idle = System.nanoTime() - recordedAt;
+            return (outstanding.get() + 1) * Math.max(averageNanos * Math.exp(-idle / idleDecayNanos), 1);
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.ust.Survey_api.model;
+
+import jakarta.persistence.EmbeddedId;
+import jakarta.persistence.Entity;
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Persistable;
+
+// Running count of responses choosing one answer option, kept up to date by ResponseWriter so results never need a
+// GROUP BY over survey_response. The key starts with surveyid, so a survey's tallies are one index range.
+@Data
+@Entity
+@Table(name = "answer_tally")
+@NoArgsConstructor
+public class AnswerTally implements Persistable<AnswerTallyId> {
+
+    @EmbeddedId
+    private AnswerTallyId id;
+    private long total;
+
+    // The id is assigned, so Spring Data can't tell a new tally by a null id; without this save() would merge, and
+    // a merge could overwrite a row another writer created meanwhile
+    @Transient
+    @EqualsAndHashCode.Exclude
+    private boolean fresh = true;
+
+    public AnswerTally(AnswerTallyId id, long total) {
+        this.id = id;
+        this.total = total;
+    }
+
+    @Override
+    public boolean isNew() {
+        return fresh;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markStored() {
+        fresh = false;
+    }
+}
@@ -0,0 +1,22 @@
+package com.ust.Survey_api.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+@Data
+@Embeddable
+@AllArgsConstructor
+@NoArgsConstructor
+public class AnswerTallyId implements Serializable {
+
+    private Long surveyid;
+    @Column(name = "question_id")
+    private Long questionId;
+    @Column(name = "answer_id")
+    private Long answerId;
+}
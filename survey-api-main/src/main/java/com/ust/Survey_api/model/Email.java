@@ -4,18 +4,25 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.NotNull;
-import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Locale;
+
 @Entity
 @Data
-@AllArgsConstructor
 @NoArgsConstructor
-@Table(name = "email")
+@Table(name = "email", indexes = @Index(name = "idx_email_survey_hash", columnList = "surveyid, email_hash"))
 public class Email {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "email_ids")
+    @TableGenerator(name = "email_ids", table = IdSequences.TABLE, pkColumnName = IdSequences.NAME_COLUMN,
+            valueColumnName = IdSequences.VALUE_COLUMN, pkColumnValue = IdSequences.EMAIL,
+            allocationSize = IdSequences.ALLOCATION_SIZE)
     private Long id;
     @NotNull(message = "Email cannot be null")
     @NotEmpty(message = "Email cannot be empty")
@@ -23,4 +30,35 @@ public class Email {
     private String email;
     private Long surveyid;
     private Status status;
+    // hash(email); lets duplicates be found per survey through the index instead of comparing addresses
+    @JsonIgnore
+    @Column(name = "email_hash")
+    private Long emailHash;
+
+    public Email(Long id, String email, Long surveyid, Status status) {
+        this.id = id;
+        this.email = email;
+        this.surveyid = surveyid;
+        this.status = status;
+    }
+
+    @PrePersist
+    @PreUpdate
+    void hashEmail() {
+        emailHash = hash(email);
+    }
+
+    // First 8 bytes of SHA-256 over the trimmed, lower-cased address, so Foo@x.com and foo@x.com hash alike
+    public static Long hash(String email) {
+        if (email == null) {
+            return null;
+        }
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest(email.trim().toLowerCase(Locale.ROOT).getBytes(StandardCharsets.UTF_8));
+            return ByteBuffer.wrap(digest).getLong();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
 }
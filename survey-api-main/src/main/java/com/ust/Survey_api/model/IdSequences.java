@@ -0,0 +1,17 @@
+package com.ust.Survey_api.model;
+
+// Table-backed id generation shared with AssessmentService: each entity draws blocks of ALLOCATION_SIZE ids from its own row
+public final class IdSequences {
+
+    public static final String TABLE = "id_sequences";
+    public static final String NAME_COLUMN = "sequence_name";
+    public static final String VALUE_COLUMN = "next_val";
+    public static final int ALLOCATION_SIZE = 50;
+
+    public static final String SURVEY = "survey";
+    public static final String EMAIL = "email";
+    public static final String RESPONSE = "survey_response";
+
+    private IdSequences() {
+    }
+}
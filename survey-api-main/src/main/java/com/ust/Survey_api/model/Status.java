@@ -2,5 +2,7 @@ package com.ust.Survey_api.model;
 
 public enum Status {
     PENDING ,
-    APPROVED
+    APPROVED,
+    // Stored by ordinal, so new values go last
+    RESPONDED
 }
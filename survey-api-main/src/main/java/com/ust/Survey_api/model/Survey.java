@@ -1,7 +1,6 @@
 package com.ust.Survey_api.model;
 
 import jakarta.persistence.*;
-import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
@@ -12,13 +11,16 @@ import java.util.List;
 
 @Data
 @Entity
-@Table(name = "dashboard")
-@AllArgsConstructor
+// (expired, expire_time) lets the expiry sweeper and active listings skip expired rows without a table scan
+@Table(name = "dashboard", indexes = @Index(name = "idx_dashboard_expired_expire_time", columnList = "expired, expire_time"))
 @NoArgsConstructor
 public class Survey {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "survey_ids")
+    @TableGenerator(name = "survey_ids", table = IdSequences.TABLE, pkColumnName = IdSequences.NAME_COLUMN,
+            valueColumnName = IdSequences.VALUE_COLUMN, pkColumnValue = IdSequences.SURVEY,
+            allocationSize = IdSequences.ALLOCATION_SIZE)
     private Long surveyid;
     private String requestor;
     private String companyName;
@@ -30,5 +32,19 @@ public class Survey {
     @JoinColumn(name = "surveyid")
     private List<Email> emails;
 
+    // Set by SurveyExpirySweeper once expireTime has passed
+    @Column(nullable = false)
+    private boolean expired;
+
+    public Survey(Long surveyid, String requestor, String companyName, Long setid, LocalDate createdTime,
+                  LocalDate expireTime, List<Email> emails) {
+        this.surveyid = surveyid;
+        this.requestor = requestor;
+        this.companyName = companyName;
+        this.setid = setid;
+        this.createdTime = createdTime;
+        this.expireTime = expireTime;
+        this.emails = emails;
+    }
 
 }
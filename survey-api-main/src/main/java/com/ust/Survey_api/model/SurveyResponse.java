@@ -0,0 +1,32 @@
+package com.ust.Survey_api.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// One answered question of a recipient's submission
+@Data
+@Entity
+@Table(name = "survey_response", indexes = @Index(name = "idx_survey_response_answer", columnList = "surveyid, question_id, answer_id"))
+@AllArgsConstructor
+@NoArgsConstructor
+public class SurveyResponse {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "survey_response_ids")
+    @TableGenerator(name = "survey_response_ids", table = IdSequences.TABLE, pkColumnName = IdSequences.NAME_COLUMN,
+            valueColumnName = IdSequences.VALUE_COLUMN, pkColumnValue = IdSequences.RESPONSE,
+            allocationSize = IdSequences.ALLOCATION_SIZE)
+    private Long id;
+    private Long surveyid;
+    @Column(name = "email_id")
+    private Long emailId;
+    @Column(name = "question_id")
+    private Long questionId;
+    @Column(name = "answer_id")
+    private Long answerId;
+    private LocalDateTime submittedAt;
+}
@@ -0,0 +1,30 @@
+package com.ust.Survey_api.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// The set data a survey was created with, so survey reads don't need AssessmentService.
+// Kept out of Survey so listing surveys doesn't drag the blobs along.
+@Data
+@Entity
+@Table(name = "survey_set_snapshot", indexes = @Index(name = "idx_survey_set_snapshot_setid", columnList = "setid"))
+@AllArgsConstructor
+@NoArgsConstructor
+public class SurveySetSnapshot {
+
+    @Id
+    private Long surveyid;
+    private Long setid;
+    // 1 when the survey is created, +1 on every refresh
+    private int version;
+    private LocalDateTime capturedAt;
+
+    // gzip-compressed JSON, see SetSnapshotCodec
+    @Lob
+    @Column(nullable = false)
+    private byte[] data;
+}
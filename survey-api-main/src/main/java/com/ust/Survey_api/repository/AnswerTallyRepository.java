@@ -0,0 +1,27 @@
+package com.ust.Survey_api.repository;
+
+import com.ust.Survey_api.model.AnswerTally;
+import com.ust.Survey_api.model.AnswerTallyId;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface AnswerTallyRepository extends JpaRepository<AnswerTally, AnswerTallyId> {
+
+    List<AnswerTally> findByIdSurveyid(Long surveyid);
+
+    // Holds off writers' increments for the survey until the caller's transaction ends
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select t from AnswerTally t where t.id.surveyid = :surveyid")
+    List<AnswerTally> lockBySurveyid(@Param("surveyid") Long surveyid);
+
+    // Relative, so concurrent writers add up instead of overwriting each other
+    @Modifying
+    @Query("update AnswerTally t set t.total = t.total + :delta where t.id = :id")
+    int increment(@Param("id") AnswerTallyId id, @Param("delta") long delta);
+}
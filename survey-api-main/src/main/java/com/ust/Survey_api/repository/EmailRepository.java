@@ -1,10 +1,59 @@
 package com.ust.Survey_api.repository;
 
 import com.ust.Survey_api.model.Email;
+import com.ust.Survey_api.model.Status;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 public interface EmailRepository extends JpaRepository<Email,Long> {
     List<Email> findBySurveyid(Long surveyid);
+
+    // 8 bytes a row instead of whole entities
+    @Query("select e.emailHash from Email e where e.surveyid = :surveyid")
+    List<Long> findEmailHashesBySurveyid(@Param("surveyid") Long surveyid);
+
+    boolean existsBySurveyidAndEmailHash(Long surveyid, Long emailHash);
+
+    Optional<Email> findFirstBySurveyidAndEmailHash(Long surveyid, Long emailHash);
+
+    // Rows written before email_hash existed
+    List<Email> findBySurveyidAndEmailHashIsNullAndEmailIsNotNull(Long surveyid);
+
+    @Query("select e.emailHash from Email e where e.surveyid = :surveyid group by e.emailHash having count(e) > 1")
+    List<Long> findDuplicateHashesBySurveyid(@Param("surveyid") Long surveyid);
+
+    List<Email> findBySurveyidAndEmailHashIn(Long surveyid, Collection<Long> emailHashes);
+
+    // Bulk status changes: one UPDATE each, no entities loaded. Rows already in the target status are left alone,
+    // so the counts are rows actually changed.
+    // fromStatus and emailSuffix are optional filters; emailSuffix is a lower-cased like pattern escaped with '!'
+    @Modifying
+    @Query("update Email e set e.status = :status where e.surveyid = :surveyid and e.status <> :status"
+            + " and (:fromStatus is null or e.status = :fromStatus)"
+            + " and (:emailSuffix is null or lower(e.email) like :emailSuffix escape '!')")
+    int updateStatusBySurveyid(@Param("surveyid") Long surveyid, @Param("status") Status status,
+                               @Param("fromStatus") Status fromStatus, @Param("emailSuffix") String emailSuffix);
+
+    @Modifying
+    @Query("update Email e set e.status = :status where e.surveyid = :surveyid and e.emailHash in :emailHashes"
+            + " and e.status <> :status")
+    int updateStatusBySurveyidAndEmailHashIn(@Param("surveyid") Long surveyid, @Param("status") Status status,
+                                             @Param("emailHashes") Collection<Long> emailHashes);
+
+    // Locks the rows still short of `status`, so concurrent writers can't both move the same recipient
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select e.id from Email e where e.id in :ids and e.status <> :status")
+    List<Long> lockIdsNotInStatus(@Param("ids") Collection<Long> ids, @Param("status") Status status);
+
+    @Modifying
+    @Query("update Email e set e.status = :status where e.id in :ids and e.status <> :status")
+    int updateStatusByIdIn(@Param("ids") Collection<Long> ids, @Param("status") Status status);
 }
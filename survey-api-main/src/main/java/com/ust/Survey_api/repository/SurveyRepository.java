@@ -1,10 +1,33 @@
 package com.ust.Survey_api.repository;
 
 import com.ust.Survey_api.model.Survey;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
 
 @Repository
 public interface SurveyRepository extends JpaRepository<Survey,Long> {
   Survey findBySurveyid(Long surveyid);
+
+  // Not expired yet, including surveys past expireTime the sweeper hasn't reached
+  @Query("select s from Survey s where s.expired = false and (s.expireTime is null or s.expireTime >= :today)")
+  List<Survey> findActive(@Param("today") LocalDate today);
+
+  // Both served by the (expired, expire_time) index
+  @Query("select s.surveyid from Survey s where s.expired = false and s.expireTime < :today order by s.expireTime")
+  List<Long> findDueIds(@Param("today") LocalDate today, Pageable chunk);
+
+  // Its own short transaction per chunk; the expired = false guard keeps concurrent sweepers from double counting
+  @Transactional
+  @Modifying
+  @Query("update Survey s set s.expired = true where s.surveyid in :surveyids and s.expired = false")
+  int markExpired(@Param("surveyids") Collection<Long> surveyids);
 }
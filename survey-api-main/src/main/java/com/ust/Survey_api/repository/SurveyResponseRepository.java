@@ -0,0 +1,20 @@
+package com.ust.Survey_api.repository;
+
+import com.ust.Survey_api.model.SurveyResponse;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface SurveyResponseRepository extends JpaRepository<SurveyResponse, Long> {
+
+    List<SurveyResponse> findBySurveyid(Long surveyid);
+
+    // questionId, answerId, count; only for rebuilding answer_tally, served by idx_survey_response_answer
+    @Query("select r.questionId, r.answerId, count(r) from SurveyResponse r where r.surveyid = :surveyid group by r.questionId, r.answerId")
+    List<Object[]> countAnswersBySurveyid(@Param("surveyid") Long surveyid);
+
+    @Query("select distinct r.surveyid from SurveyResponse r")
+    List<Long> findSurveyids();
+}
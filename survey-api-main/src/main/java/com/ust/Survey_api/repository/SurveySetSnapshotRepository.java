@@ -0,0 +1,19 @@
+package com.ust.Survey_api.repository;
+
+import com.ust.Survey_api.model.SurveySetSnapshot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+public interface SurveySetSnapshotRepository extends JpaRepository<SurveySetSnapshot, Long> {
+
+    // One UPDATE for every survey built on the set, committed on return
+    @Transactional
+    @Modifying
+    @Query("update SurveySetSnapshot s set s.data = :data, s.version = s.version + 1, s.capturedAt = :capturedAt where s.setid = :setid")
+    int refreshBySetid(@Param("setid") Long setid, @Param("data") byte[] data, @Param("capturedAt") LocalDateTime capturedAt);
+}
@@ -0,0 +1,121 @@
+package com.ust.Survey_api.service;
+
+import com.ust.Survey_api.dto.AnswerCount;
+import com.ust.Survey_api.dto.QuestionResult;
+import com.ust.Survey_api.model.AnswerTally;
+import com.ust.Survey_api.model.AnswerTallyId;
+import com.ust.Survey_api.model.SurveyResponse;
+import com.ust.Survey_api.repository.AnswerTallyRepository;
+import com.ust.Survey_api.repository.SurveyResponseRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Per-survey answer distribution, maintained incrementally in answer_tally
+@Slf4j
+@Component
+public class AnswerTallyService {
+
+    @Autowired
+    private AnswerTallyRepository tallyRepository;
+
+    @Autowired
+    private SurveyResponseRepository responseRepository;
+
+    // Joins the caller's transaction, so the counts commit or roll back with the responses they count
+    @Transactional
+    public void increment(List<SurveyResponse> rows) {
+        Map<AnswerTallyId, Long> deltas = rows.stream().collect(Collectors.groupingBy(
+                row -> new AnswerTallyId(row.getSurveyid(), row.getQuestionId(), row.getAnswerId()), Collectors.counting()));
+        deltas.forEach((id, delta) -> {
+            if (tallyRepository.increment(id, delta) == 0) {
+                // First answer for an option ensureOptions hasn't seen; a concurrent insert fails this batch,
+                // whose retry then finds the row
+                tallyRepository.save(new AnswerTally(id, delta));
+            }
+        });
+    }
+
+    // Zero rows for every option of the survey, so writers only ever update and results list unchosen options too
+    public void ensureOptions(Long surveyid, Map<Long, Set<Long>> answersByQuestion) {
+        Set<AnswerTallyId> existing = existingIds(surveyid);
+        List<AnswerTally> missing = new ArrayList<>();
+        answersByQuestion.forEach((questionId, answerIds) -> answerIds.forEach(answerId -> {
+            AnswerTallyId id = new AnswerTallyId(surveyid, questionId, answerId);
+            if (!existing.contains(id)) {
+                missing.add(new AnswerTally(id, 0));
+            }
+        }));
+        if (missing.isEmpty()) {
+            return;
+        }
+        try {
+            tallyRepository.saveAll(missing);
+        } catch (DataIntegrityViolationException e) {
+            // Another request or instance created some of them first and the whole batch rolled back; insert the
+            // ones still missing one at a time, so a further conflict costs only its own row
+            log.debug("Answer tallies of survey {} were created concurrently", surveyid);
+            Set<AnswerTallyId> created = existingIds(surveyid);
+            for (AnswerTally tally : missing) {
+                if (created.contains(tally.getId())) {
+                    continue;
+                }
+                try {
+                    tallyRepository.save(new AnswerTally(tally.getId(), 0));
+                } catch (DataIntegrityViolationException single) {
+                    log.debug("Answer tally {} was created concurrently", tally.getId());
+                }
+            }
+        }
+    }
+
+    private Set<AnswerTallyId> existingIds(Long surveyid) {
+        return tallyRepository.findByIdSurveyid(surveyid).stream().map(AnswerTally::getId).collect(Collectors.toSet());
+    }
+
+    // One index range read, proportional to the number of options
+    public List<QuestionResult> results(Long surveyid) {
+        Map<Long, List<AnswerTally>> byQuestion = tallyRepository.findByIdSurveyid(surveyid).stream()
+                .collect(Collectors.groupingBy(tally -> tally.getId().getQuestionId(), TreeMap::new, Collectors.toList()));
+        return byQuestion.entrySet().stream()
+                .map(question -> new QuestionResult(question.getKey(),
+                        question.getValue().stream().mapToLong(AnswerTally::getTotal).sum(),
+                        question.getValue().stream()
+                                .sorted(Comparator.comparing(tally -> tally.getId().getAnswerId()))
+                                .map(tally -> new AnswerCount(tally.getId().getAnswerId(), tally.getTotal()))
+                                .toList()))
+                .toList();
+    }
+
+    // Recovery: recounts the survey's tallies from survey_response in one transaction; answers how many answers were
+    // counted. The tallies are locked before counting, so a batch committing meanwhile is either counted here or
+    // applies its increment after the rebuild, never both or neither.
+    @Transactional
+    public long rebuild(Long surveyid) {
+        Map<AnswerTallyId, AnswerTally> tallies = tallyRepository.lockBySurveyid(surveyid).stream()
+                .collect(Collectors.toMap(AnswerTally::getId, Function.identity()));
+        // Options nobody chose stay, at zero
+        tallies.values().forEach(tally -> tally.setTotal(0));
+        long counted = 0;
+        for (Object[] row : responseRepository.countAnswersBySurveyid(surveyid)) {
+            AnswerTallyId id = new AnswerTallyId(surveyid, (Long) row[0], (Long) row[1]);
+            long total = (Long) row[2];
+            tallies.computeIfAbsent(id, key -> new AnswerTally(key, 0)).setTotal(total);
+            counted += total;
+        }
+        tallyRepository.saveAll(tallies.values());
+        log.info("Rebuilt answer tallies of survey {} from {} answers", surveyid, counted);
+        return counted;
+    }
+}
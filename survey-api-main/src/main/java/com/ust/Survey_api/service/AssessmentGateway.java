@@ -0,0 +1,117 @@
+package com.ust.Survey_api.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.ust.Survey_api.exception.SetDataUnavailableException;
+import com.ust.Survey_api.exception.SetNotFoundException;
+import com.ust.Survey_api.feign.AssessmentClient;
+import com.ust.Survey_api.feign.SetNameDto;
+import feign.FeignException;
+import feign.codec.DecodeException;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+// All AssessmentService calls go through here. The "assessment" bulkhead caps concurrent calls, the "assessment"
+// circuit breaker stops calling a failing or slow upstream for a while, and when a call is refused or fails the last
+// set data fetched successfully is served instead
+@Slf4j
+@Component
+public class AssessmentGateway {
+
+    public static final String NAME = "assessment";
+
+    @Autowired
+    private AssessmentClient client;
+
+    @Autowired
+    private CircuitBreakerRegistry circuitBreakerRegistry;
+
+    @Autowired
+    private BulkheadRegistry bulkheadRegistry;
+
+    @Value("${survey.set-cache.maximum-size:1000}")
+    private long maximumSize;
+
+    private CircuitBreaker circuitBreaker;
+
+    private Bulkhead bulkhead;
+
+    // Never expires, so it outlives the set-data cache's ttl; only size-bounded
+    private Cache<Long, List<SetNameDto>> lastKnown;
+
+    @PostConstruct
+    void init() {
+        circuitBreaker = circuitBreakerRegistry.circuitBreaker(NAME);
+        bulkhead = bulkheadRegistry.bulkhead(NAME);
+        lastKnown = Caffeine.newBuilder().maximumSize(maximumSize).build();
+    }
+
+    public List<SetNameDto> getSet(Long setid) {
+        try {
+            List<SetNameDto> set = guarded(() -> fetchSet(setid));
+            if (set != null) {
+                lastKnown.put(setid, set);
+            }
+            return set;
+        } catch (SetNotFoundException e) {
+            lastKnown.invalidate(setid);
+            throw e;
+        } catch (RuntimeException e) {
+            return lastKnown(setid, e);
+        }
+    }
+
+    // Never throws; if the call fails, only the sets with last known data are returned
+    public Map<Long, List<SetNameDto>> getSets(Collection<Long> setids) {
+        try {
+            Map<Long, List<SetNameDto>> sets = guarded(() -> client.getSets(setids).getBody());
+            if (sets == null) {
+                return Map.of();
+            }
+            lastKnown.putAll(sets);
+            return sets;
+        } catch (RuntimeException e) {
+            log.warn("Could not fetch set data for setids {}, serving last known data", setids, e);
+            return lastKnown(setids);
+        }
+    }
+
+    public List<SetNameDto> lastKnown(Long setid, Throwable cause) {
+        List<SetNameDto> set = lastKnown.getIfPresent(setid);
+        if (set == null) {
+            throw new SetDataUnavailableException("Set " + setid + " is unavailable: " + cause.getMessage());
+        }
+        log.warn("Could not fetch set {}, serving last known data: {}", setid, cause.toString());
+        return set;
+    }
+
+    public Map<Long, List<SetNameDto>> lastKnown(Collection<Long> setids) {
+        return lastKnown.getAllPresent(setids);
+    }
+
+    // AssessmentService answers an unknown setid with 200 and a plain message, which doesn't decode as a set; a 404
+    // from anything in between means the same
+    private List<SetNameDto> fetchSet(Long setid) {
+        try {
+            return client.getSet(setid).getBody();
+        } catch (FeignException.NotFound | DecodeException e) {
+            throw new SetNotFoundException("Set not found.");
+        }
+    }
+
+    private <T> T guarded(Supplier<T> call) {
+        return CircuitBreaker.decorateSupplier(circuitBreaker, Bulkhead.decorateSupplier(bulkhead, call)).get();
+    }
+}
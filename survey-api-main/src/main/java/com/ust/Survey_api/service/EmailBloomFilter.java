@@ -0,0 +1,63 @@
+package com.ust.Survey_api.service;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Bloom filter over Email.hash values: no false negatives, false positives at roughly the configured rate until more
+// than `capacity` hashes have been added. Safe for concurrent use.
+final class EmailBloomFilter {
+
+    private final AtomicLongArray words;
+
+    private final long bitCount;
+
+    private final int hashCount;
+
+    private final long capacity;
+
+    private final AtomicLong count = new AtomicLong();
+
+    EmailBloomFilter(long capacity, double falsePositiveRate) {
+        double ln2 = Math.log(2);
+        long bits = (long) Math.ceil(-capacity * Math.log(falsePositiveRate) / (ln2 * ln2));
+        this.words = new AtomicLongArray((int) Math.max(1, (bits + 63) / 64));
+        this.bitCount = words.length() * 64L;
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / capacity * ln2));
+        this.capacity = capacity;
+    }
+
+    boolean mightContain(long hash) {
+        for (int i = 0; i < hashCount; i++) {
+            long bit = bit(hash, i);
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    void put(long hash) {
+        for (int i = 0; i < hashCount; i++) {
+            long bit = bit(hash, i);
+            long mask = 1L << bit;
+            words.getAndAccumulate((int) (bit >>> 6), mask, (word, m) -> word | m);
+        }
+        count.incrementAndGet();
+    }
+
+    // Past capacity the false positive rate climbs; time to rebuild with more room
+    boolean isFull() {
+        return count.get() > capacity;
+    }
+
+    int sizeInBytes() {
+        return words.length() * Long.BYTES;
+    }
+
+    // Double hashing from the two halves of the (already uniform) 64-bit hash
+    private long bit(long hash, int i) {
+        long h1 = (int) hash;
+        long h2 = (int) (hash >>> 32);
+        return Math.floorMod(h1 + i * h2, bitCount);
+    }
+}
@@ -0,0 +1,112 @@
+package com.ust.Survey_api.service;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.ust.Survey_api.dto.EmailDuplicate;
+import com.ust.Survey_api.model.Email;
+import com.ust.Survey_api.repository.EmailRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+// Per-survey membership check for recipient addresses. A Bloom filter built from the email_hash column answers
+// "definitely new" for almost every address without touching the table; only its (rare) maybes are confirmed
+// against the (surveyid, email_hash) index.
+@Slf4j
+@Component
+public class EmailDeduplicator {
+
+    // Smallest filter built, so small surveys can grow a while before a rebuild
+    private static final long MIN_CAPACITY = 1024;
+
+    @Autowired
+    private EmailRepository emailRepository;
+
+    @Value("${survey.email-dedup.false-positive-rate:0.01}")
+    private double falsePositiveRate;
+
+    @Value("${survey.email-dedup.max-bytes:67108864}")
+    private long maxBytes;
+
+    private LoadingCache<Long, EmailBloomFilter> filters;
+
+    @PostConstruct
+    void init() {
+        filters = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((Long surveyid, EmailBloomFilter filter) -> filter.sizeInBytes())
+                .build(this::load);
+    }
+
+    public boolean isDuplicate(Long surveyid, long emailHash) {
+        return filters.get(surveyid).mightContain(emailHash)
+                && emailRepository.existsBySurveyidAndEmailHash(surveyid, emailHash);
+    }
+
+    // Call once the rows are committed. A filter still loading may have read the table before the commit, so this
+    // waits for that load and adds to its result; with no filter at all, the next load reads the new rows itself.
+    // compute rather than computeIfPresent, which answers absent without waiting for a load in progress
+    public void added(Long surveyid, Collection<Long> emailHashes) {
+        filters.asMap().compute(surveyid, (id, filter) -> {
+            if (filter == null) {
+                return null;
+            }
+            emailHashes.forEach(filter::put);
+            return filter.isFull() ? null : filter;
+        });
+    }
+
+    public List<EmailDuplicate> findDuplicates(Long surveyid) {
+        backfill(surveyid);
+        List<Long> hashes = emailRepository.findDuplicateHashesBySurveyid(surveyid);
+        if (hashes.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, List<Email>> rows = emailRepository.findBySurveyidAndEmailHashIn(surveyid, hashes).stream()
+                .collect(Collectors.groupingBy(Email::getEmailHash));
+        return rows.values().stream()
+                .map(group -> group.stream().sorted(Comparator.comparing(Email::getId)).toList())
+                .map(group -> new EmailDuplicate(group.get(0).getEmail(), group.stream().map(Email::getId).toList()))
+                .sorted(Comparator.comparing(duplicate -> duplicate.getIds().get(0)))
+                .toList();
+    }
+
+    // Keeps the oldest row of each duplicate address; answers how many rows were deleted
+    public int removeDuplicates(Long surveyid) {
+        List<Long> extra = findDuplicates(surveyid).stream()
+                .flatMap(duplicate -> duplicate.getIds().stream().skip(1))
+                .toList();
+        if (!extra.isEmpty()) {
+            emailRepository.deleteAllByIdInBatch(extra);
+        }
+        return extra.size();
+    }
+
+    private EmailBloomFilter load(Long surveyid) {
+        backfill(surveyid);
+        List<Long> hashes = emailRepository.findEmailHashesBySurveyid(surveyid);
+        // Twice the current size, so the survey can grow before the filter has to be rebuilt
+        EmailBloomFilter filter = new EmailBloomFilter(Math.max(MIN_CAPACITY, hashes.size() * 2L), falsePositiveRate);
+        hashes.forEach(filter::put);
+        return filter;
+    }
+
+    // One-off per survey: rows from before email_hash existed get their hash on the first lookup
+    public void backfill(Long surveyid) {
+        List<Email> unhashed = emailRepository.findBySurveyidAndEmailHashIsNullAndEmailIsNotNull(surveyid);
+        if (unhashed.isEmpty()) {
+            return;
+        }
+        unhashed.forEach(email -> email.setEmailHash(Email.hash(email.getEmail())));
+        emailRepository.saveAll(unhashed);
+        log.info("Hashed {} existing emails of survey {}", unhashed.size(), surveyid);
+    }
+}
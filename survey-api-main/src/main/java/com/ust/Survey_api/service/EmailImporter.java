@@ -0,0 +1,152 @@
+package com.ust.Survey_api.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ust.Survey_api.dto.EmailImportResult;
+import com.ust.Survey_api.model.Email;
+import com.ust.Survey_api.model.Status;
+import com.ust.Survey_api.repository.EmailRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+// Reads a recipient list line by line and inserts it in chunks, so an upload of any size needs memory only for
+// one chunk plus the survey's Bloom filter
+@Component
+public class EmailImporter {
+
+    public enum Format {
+        // one "address" or {"email": "address"} per line
+        NDJSON,
+        // address in the first column, optional "email" header row
+        CSV
+    }
+
+    @Autowired
+    private EmailRepository emailRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EmailDeduplicator deduplicator;
+
+    @Autowired
+    private Validator validator;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // Keep a multiple of hibernate.jdbc.batch_size
+    @Value("${survey.email-import.chunk-size:1000}")
+    private int chunkSize;
+
+    @Value("${survey.email-import.max-reported-rejects:1000}")
+    private int maxReportedRejects;
+
+    public EmailImportResult importEmails(Long surveyid, Reader body, Format format) {
+        EmailImportResult result = new EmailImportResult();
+        List<Email> chunk = new ArrayList<>(chunkSize);
+        // Hashes of the chunk not yet inserted; earlier chunks are in the table and the filter
+        Set<Long> pending = new HashSet<>();
+
+        try (BufferedReader reader = new BufferedReader(body)) {
+            String line;
+            long lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                String value;
+                try {
+                    value = format == Format.NDJSON ? ndjsonValue(line) : csvValue(line);
+                } catch (IllegalArgumentException e) {
+                    reject(result, lineNumber, line, e.getMessage());
+                    continue;
+                }
+                if (format == Format.CSV && lineNumber == 1 && value.equalsIgnoreCase("email")) {
+                    continue;
+                }
+                Set<ConstraintViolation<Email>> violations = validator.validateValue(Email.class, "email", value);
+                if (!violations.isEmpty()) {
+                    reject(result, lineNumber, value, violations.iterator().next().getMessage());
+                    continue;
+                }
+                long hash = Email.hash(value);
+                if (pending.contains(hash) || deduplicator.isDuplicate(surveyid, hash)) {
+                    reject(result, lineNumber, value, "Duplicate email");
+                    continue;
+                }
+                pending.add(hash);
+                chunk.add(new Email(null, value, surveyid, Status.PENDING));
+                if (chunk.size() == chunkSize) {
+                    result.setImported(result.getImported() + insert(surveyid, chunk, pending));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        result.setImported(result.getImported() + insert(surveyid, chunk, pending));
+        return result;
+    }
+
+    // Each chunk commits on its own; clearing keeps the request's persistence context from holding every row
+    private int insert(Long surveyid, List<Email> chunk, Set<Long> pending) {
+        if (chunk.isEmpty()) {
+            return 0;
+        }
+        emailRepository.saveAll(chunk);
+        entityManager.clear();
+        deduplicator.added(surveyid, pending);
+        int inserted = chunk.size();
+        chunk.clear();
+        pending.clear();
+        return inserted;
+    }
+
+    private void reject(EmailImportResult result, long line, String value, String reason) {
+        result.setRejected(result.getRejected() + 1);
+        if (result.getRejects().size() < maxReportedRejects) {
+            result.getRejects().add(new EmailImportResult.Reject(line, value, reason));
+        }
+    }
+
+    private String ndjsonValue(String line) {
+        JsonNode node;
+        try {
+            node = objectMapper.readTree(line);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Malformed JSON");
+        }
+        if (node.isObject()) {
+            node = node.get("email");
+        }
+        if (node == null || !node.isTextual()) {
+            throw new IllegalArgumentException("Expected a string or an object with an email field");
+        }
+        return node.asText().trim();
+    }
+
+    private static String csvValue(String line) {
+        int comma = line.indexOf(',');
+        String value = (comma < 0 ? line : line.substring(0, comma)).trim();
+        if (value.length() >= 2 && value.startsWith("\"") && value.endsWith("\"")) {
+            value = value.substring(1, value.length() - 1).trim();
+        }
+        return value;
+    }
+}
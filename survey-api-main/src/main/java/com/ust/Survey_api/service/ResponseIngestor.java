@@ -0,0 +1,277 @@
+package com.ust.Survey_api.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.ust.Survey_api.dto.AnswerSelection;
+import com.ust.Survey_api.dto.ResponseSubmission;
+import com.ust.Survey_api.exception.InvalidResponseException;
+import com.ust.Survey_api.exception.ResponseQueueFullException;
+import com.ust.Survey_api.exception.SetNotFoundException;
+import com.ust.Survey_api.feign.Answer;
+import com.ust.Survey_api.feign.SetNameDto;
+import com.ust.Survey_api.model.Email;
+import com.ust.Survey_api.model.Status;
+import com.ust.Survey_api.model.Survey;
+import com.ust.Survey_api.repository.EmailRepository;
+import com.ust.Survey_api.repository.SurveyRepository;
+import com.ust.Survey_api.repository.SurveySetSnapshotRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+// Accepts respondents' submissions. Each is validated on the request thread, then parked in a bounded queue that
+// writer threads drain into batched transactions (ResponseWriter). A full queue is reported to the caller (429)
+// instead of letting requests pile up behind the database.
+@Slf4j
+@Component
+public class ResponseIngestor {
+
+    public static final String QUEUE_GAUGE = "survey.responses.queue";
+    public static final String ACCEPTED_COUNTER = "survey.responses.accepted";
+    public static final String THROTTLED_COUNTER = "survey.responses.throttled";
+    public static final String WRITTEN_COUNTER = "survey.responses.written";
+    public static final String FAILED_COUNTER = "survey.responses.failed";
+    public static final String BATCH_TIMER = "survey.responses.batch";
+
+    public record Submission(Long surveyid, Long emailId, List<AnswerSelection> answers, LocalDateTime submittedAt) {
+    }
+
+    // A survey's questionId -> answerIds, with the day it expires so that is checked on every submit
+    private record SurveyAnswers(LocalDate expireTime, Map<Long, Set<Long>> valid) {
+
+        boolean isExpiredOn(LocalDate today) {
+            return expireTime != null && expireTime.isBefore(today);
+        }
+    }
+
+    @Autowired
+    private SurveyRepository repo;
+
+    @Autowired
+    private EmailRepository emailRepository;
+
+    @Autowired
+    private SurveySetSnapshotRepository snapshotRepository;
+
+    @Autowired
+    private SetSnapshotCodec codec;
+
+    @Autowired
+    private SetDataCache setDataCache;
+
+    @Autowired
+    private ResponseWriter writer;
+
+    @Autowired
+    private AnswerTallyService answerTallies;
+
+    @Autowired
+    private EmailDeduplicator emailDeduplicator;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${survey.responses.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${survey.responses.batch-size:500}")
+    private int batchSize;
+
+    @Value("${survey.responses.writers:2}")
+    private int writers;
+
+    // How long a survey's valid answer ids are trusted before being read again
+    @Value("${survey.responses.answers-ttl:PT1M}")
+    private Duration answersTtl;
+
+    private BlockingQueue<Submission> queue;
+
+    Clock clock = Clock.systemDefaultZone();
+
+    private Cache<Long, SurveyAnswers> validAnswers;
+
+    // Bumped by every invalidation; a load that started before one is not cached
+    private final AtomicLong generation = new AtomicLong();
+
+    private ExecutorService writerThreads;
+
+    private volatile boolean running;
+
+    private Counter accepted;
+    private Counter throttled;
+    private Counter written;
+    private Counter failed;
+    private Timer batchTimer;
+
+    @PostConstruct
+    void start() {
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        validAnswers = Caffeine.newBuilder().maximumSize(10_000).expireAfterWrite(answersTtl).build();
+        Gauge.builder(QUEUE_GAUGE, queue, BlockingQueue::size).description("Submissions waiting to be written").register(meterRegistry);
+        accepted = meterRegistry.counter(ACCEPTED_COUNTER);
+        throttled = meterRegistry.counter(THROTTLED_COUNTER);
+        written = meterRegistry.counter(WRITTEN_COUNTER);
+        failed = meterRegistry.counter(FAILED_COUNTER);
+        batchTimer = meterRegistry.timer(BATCH_TIMER);
+
+        running = true;
+        writerThreads = Executors.newFixedThreadPool(writers, new CustomizableThreadFactory("response-writer-"));
+        for (int i = 0; i < writers; i++) {
+            writerThreads.execute(this::drain);
+        }
+    }
+
+    // Writers finish what is queued before the application stops
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        writerThreads.shutdown();
+        if (!writerThreads.awaitTermination(30, TimeUnit.SECONDS)) {
+            log.warn("{} queued responses were not written before shutdown", queue.size());
+        }
+    }
+
+    public void submit(Long surveyid, ResponseSubmission submission) {
+        if (submission == null || submission.getEmail() == null || submission.getAnswers() == null || submission.getAnswers().isEmpty()) {
+            throw new InvalidResponseException("A response needs the recipient's email and at least one answer");
+        }
+        SurveyAnswers answers = validAnswers(surveyid);
+        if (answers.isExpiredOn(LocalDate.now(clock))) {
+            throw new InvalidResponseException("Survey " + surveyid + " has expired");
+        }
+        Map<Long, Set<Long>> valid = answers.valid();
+        Set<Long> answered = new HashSet<>();
+        for (AnswerSelection answer : submission.getAnswers()) {
+            Set<Long> answerIds = answer.getQuestionId() == null ? null : valid.get(answer.getQuestionId());
+            if (answerIds == null) {
+                throw new InvalidResponseException("Question " + answer.getQuestionId() + " is not part of survey " + surveyid);
+            }
+            if (answer.getAnswerId() == null || !answerIds.contains(answer.getAnswerId())) {
+                throw new InvalidResponseException("Answer " + answer.getAnswerId() + " is not an option of question " + answer.getQuestionId());
+            }
+            if (!answered.add(answer.getQuestionId())) {
+                throw new InvalidResponseException("Question " + answer.getQuestionId() + " is answered more than once");
+            }
+        }
+        Email email = emailRepository.findFirstBySurveyidAndEmailHash(surveyid, Email.hash(submission.getEmail()))
+                .orElseThrow(() -> new InvalidResponseException(submission.getEmail() + " is not a recipient of survey " + surveyid));
+        if (email.getStatus() == Status.RESPONDED) {
+            throw new InvalidResponseException(submission.getEmail() + " has already responded to survey " + surveyid);
+        }
+
+        Submission queued = new Submission(surveyid, email.getId(), List.copyOf(submission.getAnswers()), LocalDateTime.now());
+        if (!running || !queue.offer(queued)) {
+            throttled.increment();
+            throw new ResponseQueueFullException("Too many responses are waiting to be written, retry shortly");
+        }
+        accepted.increment();
+    }
+
+    // After a snapshot refresh the survey's questions may have changed, after the sweeper it may have expired
+    public void invalidate(Long surveyid) {
+        generation.incrementAndGet();
+        validAnswers.invalidate(surveyid);
+    }
+
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        validAnswers.invalidateAll();
+    }
+
+    // Loaded outside the cache's compute: the load reads the database, may go to AssessmentService and writes the
+    // tally rows, none of which may run under the cache's lock. Concurrent first submits may each load; the result is
+    // the same
+    private SurveyAnswers validAnswers(Long surveyid) {
+        SurveyAnswers cached = validAnswers.getIfPresent(surveyid);
+        if (cached != null) {
+            return cached;
+        }
+        long loadedAt = generation.get();
+        SurveyAnswers loaded = loadValidAnswers(surveyid);
+        answerTallies.ensureOptions(surveyid, loaded.valid());
+        validAnswers.asMap().compute(surveyid, (id, current) -> generation.get() == loadedAt ? loaded : current);
+        return loaded;
+    }
+
+    private SurveyAnswers loadValidAnswers(Long surveyid) {
+        Survey survey = repo.findBySurveyid(surveyid);
+        if (survey == null) {
+            throw new SetNotFoundException("Invalid survey id");
+        }
+        if (survey.isExpired()) {
+            throw new InvalidResponseException("Survey " + surveyid + " has expired");
+        }
+        // Recipients are looked up by email_hash, which rows from before that column existed don't have yet
+        emailDeduplicator.backfill(surveyid);
+        List<SetNameDto> setData = snapshotRepository.findById(surveyid)
+                .map(snapshot -> codec.decode(snapshot.getData()))
+                .orElseGet(() -> setDataCache.get(survey.getSetid()));
+        Map<Long, Set<Long>> valid = setData.stream().collect(Collectors.toMap(SetNameDto::getQuestionId,
+                question -> question.getAnswers() == null ? Set.of()
+                        : question.getAnswers().stream().map(Answer::getAnswerId).collect(Collectors.toSet()),
+                (first, second) -> first));
+        return new SurveyAnswers(survey.getExpireTime(), valid);
+    }
+
+    private void drain() {
+        List<Submission> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                Submission first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                write(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void write(List<Submission> batch) {
+        try {
+            written.increment(batchTimer.record(() -> writer.write(batch)));
+        } catch (RuntimeException e) {
+            // One bad submission must not cost the rest of the batch
+            log.warn("Writing a batch of {} responses failed, retrying them one by one", batch.size(), e);
+            for (Submission submission : batch) {
+                try {
+                    written.increment(writer.write(List.of(submission)));
+                } catch (RuntimeException single) {
+                    failed.increment();
+                    log.error("Dropping response of email {} to survey {}", submission.emailId(), submission.surveyid(), single);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.ust.Survey_api.service;
+
+import com.ust.Survey_api.dto.AnswerSelection;
+import com.ust.Survey_api.model.Status;
+import com.ust.Survey_api.model.SurveyResponse;
+import com.ust.Survey_api.repository.EmailRepository;
+import com.ust.Survey_api.repository.SurveyResponseRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+// Writes a batch of queued submissions in one transaction: the answer rows through JDBC batching, one increment per
+// chosen option and the recipients' move to RESPONDED as a single UPDATE
+@Component
+public class ResponseWriter {
+
+    @Autowired
+    private SurveyResponseRepository responseRepository;
+
+    @Autowired
+    private EmailRepository emailRepository;
+
+    @Autowired
+    private AnswerTallyService answerTallies;
+
+    // Answers how many submissions were stored; a recipient who already responded, here or in an earlier batch,
+    // is skipped
+    @Transactional
+    public int write(List<ResponseIngestor.Submission> batch) {
+        Set<Long> open = new HashSet<>(emailRepository.lockIdsNotInStatus(
+                batch.stream().map(ResponseIngestor.Submission::emailId).toList(), Status.RESPONDED));
+        List<SurveyResponse> rows = new ArrayList<>();
+        List<Long> responded = new ArrayList<>();
+        for (ResponseIngestor.Submission submission : batch) {
+            if (!open.remove(submission.emailId())) {
+                continue;
+            }
+            for (AnswerSelection answer : submission.answers()) {
+                rows.add(new SurveyResponse(null, submission.surveyid(), submission.emailId(),
+                        answer.getQuestionId(), answer.getAnswerId(), submission.submittedAt()));
+            }
+            responded.add(submission.emailId());
+        }
+        if (responded.isEmpty()) {
+            return 0;
+        }
+        responseRepository.saveAll(rows);
+        answerTallies.increment(rows);
+        emailRepository.updateStatusByIdIn(responded, Status.RESPONDED);
+        return responded.size();
+    }
+}
@@ -1,39 +1,85 @@
 package com.ust.Survey_api.service;
 
+import com.ust.Survey_api.dto.EmailDuplicate;
+import com.ust.Survey_api.dto.EmailImportResult;
+import com.ust.Survey_api.dto.QuestionResult;
+import com.ust.Survey_api.dto.ResponseSubmission;
 import com.ust.Survey_api.exception.SetNotFoundException;
-import com.ust.Survey_api.feign.AssessmentClient;
 import com.ust.Survey_api.feign.FullResponse;
 import com.ust.Survey_api.feign.SetNameDto;
 import com.ust.Survey_api.feign.SurveyRequestDto;
 import com.ust.Survey_api.model.Email;
 import com.ust.Survey_api.model.Status;
 import com.ust.Survey_api.model.Survey;
+import com.ust.Survey_api.model.SurveySetSnapshot;
 import com.ust.Survey_api.repository.EmailRepository;
 import com.ust.Survey_api.repository.SurveyRepository;
+import com.ust.Survey_api.repository.SurveyResponseRepository;
+import com.ust.Survey_api.repository.SurveySetSnapshotRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.io.Reader;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 public class ServiceImpl  implements  SurveyService{
 
     private static final AtomicLong counter = new AtomicLong(0);
 
-    @Autowired
-    private AssessmentClient client;
+    // Addresses per UPDATE ... in (...) statement
+    private static final int MAX_STATUS_BATCH = 1000;
 
     @Autowired
     private SurveyRepository repo;
 
+    @Autowired
+    private SetDataCache setDataCache;
+
     @Autowired
     private EmailRepository emailRepository;
 
+    @Autowired
+    private SurveySetSnapshotRepository snapshotRepository;
+
+    @Autowired
+    private SurveyWriter surveyWriter;
+
+    @Autowired
+    private AssessmentGateway gateway;
+
+    @Autowired
+    private SetSnapshotCodec codec;
+
+    @Autowired
+    private EmailImporter emailImporter;
+
+    @Autowired
+    private EmailDeduplicator emailDeduplicator;
+
+    @Autowired
+    private ResponseIngestor responseIngestor;
+
+    @Autowired
+    private AnswerTallyService answerTallies;
+
+    @Autowired
+    private SurveyResponseRepository responseRepository;
+
     @Override
     public FullResponse addSurvey(SurveyRequestDto survey) {
         FullResponse fr = new FullResponse();
@@ -42,13 +88,12 @@ public class ServiceImpl  implements  SurveyService{
         fr.setExpireTime((LocalDate.now()).plus(30, ChronoUnit.DAYS));
         fr.setSetId(survey.getSetid());
         fr.setCompanyName(survey.getCompanyName());
-        List<SetNameDto> optionalSetData = null;
-        try {
-            optionalSetData = client.getSet(survey.getSetid()).getBody();
-            fr.setSetdata(optionalSetData);
-        } catch (Exception e) {
+        if (survey.getSetid() == null) {
             throw new SetNotFoundException("Set not found.");
         }
+        // Only a missing set is reported as not found; an unavailable AssessmentService surfaces as a 503
+        List<SetNameDto> optionalSetData = setDataCache.get(survey.getSetid());
+        fr.setSetdata(optionalSetData);
 
         Survey s = new Survey();
         s.setSurveyid(survey.getSurveyid());
@@ -57,7 +102,7 @@ public class ServiceImpl  implements  SurveyService{
         s.setCreatedTime(LocalDate.now());
         s.setExpireTime((LocalDate.now()).plus(30, ChronoUnit.DAYS));
         s.setCompanyName(survey.getCompanyName());
-        Survey se= repo.save(s);
+        Survey se= surveyWriter.create(s, codec.encode(optionalSetData));
         fr.setSurveyid(se.getSurveyid());
         return fr;
     }
@@ -67,11 +112,17 @@ public class ServiceImpl  implements  SurveyService{
         List<FullResponse> frs = new ArrayList<FullResponse>();
         List<Survey> surveys = null;
         try{
-             surveys =  repo.findAll();
+             // Expired surveys are left out, so they are no longer decoded or re-fetched here
+             surveys =  repo.findActive(LocalDate.now());
         }
         catch(Exception e){
             throw new SetNotFoundException("Invalid survey id");
         }
+        // Set data comes from each survey's snapshot; only surveys created before snapshots existed go upstream
+        Map<Long, SurveySetSnapshot> snapshots = snapshotRepository.findAllById(surveys.stream().map(Survey::getSurveyid).toList())
+                .stream().collect(Collectors.toMap(SurveySetSnapshot::getSurveyid, Function.identity()));
+        List<Long> missing = surveys.stream().filter(survey -> !snapshots.containsKey(survey.getSurveyid())).map(Survey::getSetid).toList();
+        Map<Long, List<SetNameDto>> setData = missing.isEmpty() ? Map.of() : setDataCache.getAll(missing);
         for (Survey survey : surveys) {
             FullResponse fr = new FullResponse();
             //long id = counter.incrementAndGet();
@@ -81,8 +132,8 @@ public class ServiceImpl  implements  SurveyService{
             fr.setCreatedTime(survey.getCreatedTime());
             fr.setExpireTime(survey.getExpireTime());
             fr.setCompanyName(survey.getCompanyName());
-            List<SetNameDto> dtos = client.getSet(survey.getSetid()).getBody();
-            fr.setSetdata(dtos);
+            SurveySetSnapshot snapshot = snapshots.get(survey.getSurveyid());
+            fr.setSetdata(snapshot != null ? codec.decode(snapshot.getData()) : setData.get(survey.getSetid()));
             frs.add(fr);
         }
         return frs;
@@ -101,26 +152,155 @@ public class ServiceImpl  implements  SurveyService{
         fr.setRequestor(survey.getRequestor());
         fr.setSetId(survey.getSetid());
         fr.setCompanyName(survey.getCompanyName());
-        List<SetNameDto> dtos = client.getSet(survey.getSetid()).getBody();
+        List<SetNameDto> dtos = snapshotRepository.findById(surveyId)
+                .map(snapshot -> codec.decode(snapshot.getData()))
+                .orElseGet(() -> setDataCache.get(survey.getSetid()));
         fr.setSetdata(dtos);
         return fr;
     }
 
+    @Override
+    public EmailImportResult importEmails(Long surveyid, Reader body, EmailImporter.Format format) {
+        if (repo.findBySurveyid(surveyid) == null) {
+            throw new SetNotFoundException("Invalid survey id");
+        }
+        return emailImporter.importEmails(surveyid, body, format);
+    }
+
+    @Override
+    public List<EmailDuplicate> findDuplicateEmails(Long surveyid) {
+        if (repo.findBySurveyid(surveyid) == null) {
+            throw new SetNotFoundException("Invalid survey id");
+        }
+        return emailDeduplicator.findDuplicates(surveyid);
+    }
+
+    @Override
+    public int removeDuplicateEmails(Long surveyid) {
+        if (repo.findBySurveyid(surveyid) == null) {
+            throw new SetNotFoundException("Invalid survey id");
+        }
+        return emailDeduplicator.removeDuplicates(surveyid);
+    }
+
+    @Override
+    @Transactional
+    public int updateEmailStatus(Long surveyid, Status status, Status fromStatus, String domain) {
+        if (repo.findBySurveyid(surveyid) == null) {
+            throw new SetNotFoundException("Invalid survey id");
+        }
+        String emailSuffix = domain == null ? null : "%@" + domain.trim().toLowerCase(Locale.ROOT)
+                .replace("!", "!!").replace("%", "!%").replace("_", "!_");
+        return emailRepository.updateStatusBySurveyid(surveyid, status, fromStatus, emailSuffix);
+    }
+
+    @Override
+    @Transactional
+    public int updateEmailStatus(Long surveyid, Status status, List<String> emails) {
+        if (repo.findBySurveyid(surveyid) == null) {
+            throw new SetNotFoundException("Invalid survey id");
+        }
+        // Matched on the indexed email_hash, so rows from before the column existed need theirs first
+        emailDeduplicator.backfill(surveyid);
+        List<Long> hashes = emails.stream().map(Email::hash).filter(Objects::nonNull).distinct().toList();
+        int updated = 0;
+        for (int from = 0; from < hashes.size(); from += MAX_STATUS_BATCH) {
+            List<Long> batch = hashes.subList(from, Math.min(from + MAX_STATUS_BATCH, hashes.size()));
+            updated += emailRepository.updateStatusBySurveyidAndEmailHashIn(surveyid, status, batch);
+        }
+        return updated;
+    }
+
+    @Override
+    public void submitResponse(Long surveyid, ResponseSubmission submission) {
+        responseIngestor.submit(surveyid, submission);
+    }
+
+    @Override
+    public List<QuestionResult> getResults(Long surveyid) {
+        if (repo.findBySurveyid(surveyid) == null) {
+            throw new SetNotFoundException("Invalid survey id");
+        }
+        return answerTallies.results(surveyid);
+    }
+
+    @Override
+    public long rebuildResults(Long surveyid) {
+        if (repo.findBySurveyid(surveyid) == null) {
+            throw new SetNotFoundException("Invalid survey id");
+        }
+        return answerTallies.rebuild(surveyid);
+    }
+
+    // Each survey in its own transaction, so the rebuild never holds one lock set for long
+    @Override
+    public int rebuildAllResults() {
+        List<Long> surveyids = responseRepository.findSurveyids();
+        surveyids.forEach(answerTallies::rebuild);
+        return surveyids.size();
+    }
+
+    @Override
+    public FullResponse refreshSnapshot(Long surveyid) {
+        Survey survey = repo.findBySurveyid(surveyid);
+        if (survey == null) {
+            throw new SetNotFoundException("Invalid survey id");
+        }
+        // Straight to the gateway: a refresh must not be answered from the cache it is meant to bypass
+        List<SetNameDto> setData = gateway.getSet(survey.getSetid());
+        SurveySetSnapshot snapshot = snapshotRepository.findById(surveyid)
+                .orElseGet(() -> new SurveySetSnapshot(surveyid, survey.getSetid(), 0, null, null));
+        snapshot.setVersion(snapshot.getVersion() + 1);
+        snapshot.setCapturedAt(LocalDateTime.now());
+        snapshot.setData(codec.encode(setData));
+        snapshotRepository.save(snapshot);
+        responseIngestor.invalidate(surveyid);
+
+        FullResponse fr = new FullResponse();
+        fr.setSurveyid(survey.getSurveyid());
+        fr.setRequestor(survey.getRequestor());
+        fr.setSetId(survey.getSetid());
+        fr.setCreatedTime(survey.getCreatedTime());
+        fr.setExpireTime(survey.getExpireTime());
+        fr.setCompanyName(survey.getCompanyName());
+        fr.setSetdata(setData);
+        return fr;
+    }
+
+    // The set is fetched before the UPDATE opens its transaction, and the ingestor drops its answers only once the
+    // new snapshots are committed, so a reload cannot pick up the old ones again
+    @Override
+    public int refreshSnapshots(Long setid) {
+        List<SetNameDto> setData = gateway.getSet(setid);
+        int refreshed = snapshotRepository.refreshBySetid(setid, codec.encode(setData), LocalDateTime.now());
+        responseIngestor.invalidateAll();
+        return refreshed;
+    }
+
     @Override
     public List<Email> addEmails(Long surveyid, List<String> emails) {
+        if (repo.findBySurveyid(surveyid) == null) {
+            throw new SetNotFoundException("Invalid survey id");
+        }
         try {
             List<Email> emailList = new ArrayList<Email>();
+            Set<Long> hashes = new HashSet<>();
             for (String email : emails) {
+                // Addresses the survey already has, or that repeat in this list, are skipped
+                Long hash = Email.hash(email);
+                if (hash != null && (emailDeduplicator.isDuplicate(surveyid, hash) || !hashes.add(hash))) {
+                    continue;
+                }
                 Email e = new Email();
                 e.setEmail(email);
                 e.setSurveyid(surveyid);
                 e.setStatus(Status.PENDING);
                 emailList.add(e);
             }
-            Survey survey = repo.findBySurveyid(surveyid);
-            survey.setEmails(emailList);
-            repo.save(survey);
-            return emailRepository.saveAll(emailList);
+            // Email rows carry the surveyid themselves; saving them through the survey as well wrote every row twice
+            List<Email> saved = emailRepository.saveAll(emailList);
+            emailDeduplicator.added(surveyid, hashes);
+            return saved;
         }
         catch (Exception e) {
             throw new SetNotFoundException("Invalid email found.");
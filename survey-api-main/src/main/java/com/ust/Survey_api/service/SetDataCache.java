@@ -0,0 +1,164 @@
+package com.ust.Survey_api.service;
+
+import com.github.benmanes.caffeine.cache.AsyncCacheLoader;
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import com.ust.Survey_api.config.SetFetchConfig;
+import com.ust.Survey_api.exception.SetDataUnavailableException;
+import com.ust.Survey_api.feign.SetNameDto;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+// Client-side cache of set data. After refresh-after, readers get the cached set while it is reloaded in the background;
+// after ttl the entry is dropped and the next reader waits for a fresh fetch.
+// Concurrent readers of a set that isn't cached share one in-flight fetch and its result or error, waiting at most wait-timeout
+@Component
+public class SetDataCache {
+
+    public static final String NAME = "setData";
+    public static final String REFRESH_TIMER = "survey.set.cache.refresh";
+
+    @Autowired
+    private AssessmentGateway gateway;
+
+    @Autowired
+    private SetDataFetcher setDataFetcher;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    @Qualifier(SetFetchConfig.SET_FETCH_EXECUTOR)
+    private Executor executor;
+
+    @Value("${survey.set-cache.maximum-size:1000}")
+    private long maximumSize;
+
+    @Value("${survey.set-cache.refresh-after:PT1M}")
+    private Duration refreshAfter;
+
+    @Value("${survey.set-cache.ttl:PT30M}")
+    private Duration ttl;
+
+    @Value("${survey.set-cache.wait-timeout:PT5S}")
+    private Duration waitTimeout;
+
+    @Value("${survey.assessment.call-timeout:PT2S}")
+    private Duration callTimeout;
+
+    Ticker ticker = Ticker.systemTicker();
+
+    private AsyncLoadingCache<Long, List<SetNameDto>> cache;
+
+    private Timer refreshTimer;
+
+    @PostConstruct
+    void init() {
+        refreshTimer = Timer.builder(REFRESH_TIMER)
+                .description("Time taken to reload a cached set from AssessmentService")
+                .register(meterRegistry);
+        cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .refreshAfterWrite(refreshAfter)
+                .expireAfterWrite(ttl)
+                .executor(executor)
+                .ticker(ticker)
+                .recordStats()
+                .buildAsync(new Loader());
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, NAME);
+    }
+
+    public List<SetNameDto> get(Long setid) {
+        try {
+            return cache.get(setid).get(waitTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : new CompletionException(e.getCause());
+        } catch (TimeoutException e) {
+            throw new SetDataUnavailableException("Timed out waiting for set " + setid);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SetDataUnavailableException("Interrupted waiting for set " + setid);
+        }
+    }
+
+    // Sets that couldn't be fetched in time are left out of the map
+    public Map<Long, List<SetNameDto>> getAll(Collection<Long> setids) {
+        List<Long> distinct = setids.stream().filter(Objects::nonNull).distinct().toList();
+        CompletableFuture<Map<Long, List<SetNameDto>>> all = cache.getAll(distinct);
+        try {
+            return all.get(waitTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException | TimeoutException e) {
+            return completedSets(distinct);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return completedSets(distinct);
+        }
+    }
+
+    // Whatever is already loaded when a bulk read can't wait any longer for the slowest set
+    private Map<Long, List<SetNameDto>> completedSets(List<Long> setids) {
+        Map<Long, List<SetNameDto>> sets = new HashMap<>();
+        for (Long setid : setids) {
+            CompletableFuture<List<SetNameDto>> future = cache.getIfPresent(setid);
+            if (future != null && future.isDone() && !future.isCompletedExceptionally()) {
+                List<SetNameDto> set = future.join();
+                if (set != null) {
+                    sets.put(setid, set);
+                }
+            }
+        }
+        return sets;
+    }
+
+    private class Loader implements AsyncCacheLoader<Long, List<SetNameDto>> {
+
+        // A call still running after call-timeout is abandoned in favour of the last known set
+        @Override
+        public CompletableFuture<List<SetNameDto>> asyncLoad(Long setid, Executor executor) {
+            return CompletableFuture.supplyAsync(() -> gateway.getSet(setid), executor)
+                    .orTimeout(callTimeout.toMillis(), TimeUnit.MILLISECONDS)
+                    .exceptionally(error -> {
+                        Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+                        if (cause instanceof TimeoutException) {
+                            return gateway.lastKnown(setid, cause);
+                        }
+                        throw error instanceof CompletionException completion ? completion : new CompletionException(cause);
+                    });
+        }
+
+        // The fetcher already batches and parallelises on the set-fetch executor. Its future is handed back unjoined,
+        // so getAll stops waiting at wait-timeout while the batches finish filling the cache; running the fetch itself
+        // on that executor could starve it, with every thread waiting on batches queued behind it
+        @Override
+        public CompletableFuture<Map<Long, List<SetNameDto>>> asyncLoadAll(Set<? extends Long> setids, Executor executor) {
+            return setDataFetcher.fetchAsync(List.copyOf(setids));
+        }
+
+        @Override
+        public CompletableFuture<List<SetNameDto>> asyncReload(Long setid, List<SetNameDto> oldValue, Executor executor) {
+            Timer.Sample sample = Timer.start(meterRegistry);
+            return asyncLoad(setid, executor).whenComplete((value, error) -> sample.stop(refreshTimer));
+        }
+    }
+}
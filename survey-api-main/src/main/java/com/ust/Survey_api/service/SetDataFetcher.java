@@ -0,0 +1,77 @@
+package com.ust.Survey_api.service;
+
+import com.ust.Survey_api.config.SetFetchConfig;
+import com.ust.Survey_api.feign.AssessmentClient;
+import com.ust.Survey_api.feign.SetNameDto;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+// Fetches set data for many setids: distinct ids are split into batches and the batches are fetched in parallel
+@Slf4j
+@Component
+public class SetDataFetcher {
+
+    @Autowired
+    private AssessmentGateway gateway;
+
+    @Autowired
+    @Qualifier(SetFetchConfig.SET_FETCH_EXECUTOR)
+    private Executor executor;
+
+    @Value("${survey.set-fetch.batch-size:50}")
+    private int batchSize;
+
+    @Value("${survey.set-fetch.timeout:PT5S}")
+    private Duration timeout;
+
+    // A failed or timed-out batch falls back to the last known data for its sets, and sets without any are left out,
+    // so one bad batch doesn't fail the whole page
+    public Map<Long, List<SetNameDto>> fetch(Collection<Long> setids) {
+        return fetchAsync(setids).join();
+    }
+
+    // As fetch, without waiting: completes once every batch has its data or its fallback
+    public CompletableFuture<Map<Long, List<SetNameDto>>> fetchAsync(Collection<Long> setids) {
+        List<Long> distinct = setids.stream().filter(Objects::nonNull).distinct().toList();
+        int size = Math.max(1, Math.min(batchSize, AssessmentClient.MAX_SET_IDS));
+
+        List<CompletableFuture<Map<Long, List<SetNameDto>>>> batches = new ArrayList<>();
+        for (int from = 0; from < distinct.size(); from += size) {
+            List<Long> batch = distinct.subList(from, Math.min(from + size, distinct.size()));
+            batches.add(CompletableFuture.supplyAsync(() -> fetchBatch(batch), executor)
+                    .orTimeout(timeout.toMillis(), TimeUnit.MILLISECONDS)
+                    .exceptionally(error -> gateway.lastKnown(batch)));
+        }
+
+        return CompletableFuture.allOf(batches.toArray(CompletableFuture[]::new)).thenApply(done -> {
+            Map<Long, List<SetNameDto>> setData = new HashMap<>();
+            for (CompletableFuture<Map<Long, List<SetNameDto>>> batch : batches) {
+                setData.putAll(batch.join());
+            }
+            return setData;
+        });
+    }
+
+    private Map<Long, List<SetNameDto>> fetchBatch(List<Long> batch) {
+        try {
+            return gateway.getSets(batch);
+        } catch (Exception e) {
+            log.warn("Could not fetch set data for setids {}", batch, e);
+            return gateway.lastKnown(batch);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.ust.Survey_api.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ust.Survey_api.feign.SetNameDto;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+// Set data as stored in survey_set_snapshot: gzip-compressed JSON of the List<SetNameDto>
+@Component
+public class SetSnapshotCodec {
+
+    private static final TypeReference<List<SetNameDto>> SET_DATA = new TypeReference<>() {
+    };
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    public byte[] encode(List<SetNameDto> setData) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (OutputStream out = new GZIPOutputStream(bytes)) {
+            objectMapper.writeValue(out, setData);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    public List<SetNameDto> decode(byte[] data) {
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(data))) {
+            return objectMapper.readValue(in, SET_DATA);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
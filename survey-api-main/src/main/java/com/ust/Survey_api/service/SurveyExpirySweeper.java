@@ -0,0 +1,77 @@
+package com.ust.Survey_api.service;
+
+import com.ust.Survey_api.repository.SurveyRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.List;
+
+// Marks surveys past their expireTime as expired. Due surveys are found through the (expired, expire_time) index and
+// marked a chunk at a time, each chunk in its own short UPDATE, so a backlog never turns into one long transaction.
+@Slf4j
+@Component
+public class SurveyExpirySweeper {
+
+    public static final String EXPIRED_COUNTER = "survey.expiry.expired";
+
+    @Autowired
+    private SurveyRepository repo;
+
+    @Autowired
+    private ResponseIngestor responseIngestor;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${survey.expiry.chunk-size:500}")
+    private int chunkSize;
+
+    // Bounds one run; whatever is left is picked up by the next
+    @Value("${survey.expiry.max-chunks-per-run:100}")
+    private int maxChunksPerRun;
+
+    Clock clock = Clock.systemDefaultZone();
+
+    private Counter expired;
+
+    @PostConstruct
+    void init() {
+        expired = Counter.builder(EXPIRED_COUNTER)
+                .description("Surveys marked expired by the sweeper")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${survey.expiry.interval:PT1M}")
+    public int sweep() {
+        LocalDate today = LocalDate.now(clock);
+        int total = 0;
+        for (int chunk = 0; chunk < maxChunksPerRun; chunk++) {
+            // Always the first page: rows marked by the previous chunk no longer match
+            List<Long> due = repo.findDueIds(today, PageRequest.of(0, chunkSize));
+            if (due.isEmpty()) {
+                break;
+            }
+            int marked = repo.markExpired(due);
+            // Committed, so the ingestor stops accepting responses for these surveys now rather than after its TTL
+            due.forEach(responseIngestor::invalidate);
+            total += marked;
+            expired.increment(marked);
+            if (due.size() < chunkSize) {
+                break;
+            }
+        }
+        if (total > 0) {
+            log.info("Marked {} surveys expired", total);
+        }
+        return total;
+    }
+}
@@ -1,13 +1,19 @@
 package com.ust.Survey_api.service;
 
+import com.ust.Survey_api.dto.EmailDuplicate;
+import com.ust.Survey_api.dto.EmailImportResult;
+import com.ust.Survey_api.dto.QuestionResult;
+import com.ust.Survey_api.dto.ResponseSubmission;
 import com.ust.Survey_api.feign.FullResponse;
 import com.ust.Survey_api.feign.SetNameDto;
 import com.ust.Survey_api.feign.SurveyRequestDto;
 import com.ust.Survey_api.model.Email;
+import com.ust.Survey_api.model.Status;
 import com.ust.Survey_api.model.Survey;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 
+import java.io.Reader;
 import java.util.List;
 
 @Service
@@ -23,6 +29,28 @@ public interface SurveyService {
 
     List<Email> getEmails(Long surveyId);
 
+    EmailImportResult importEmails(Long surveyId, Reader body, EmailImporter.Format format);
+
+    List<EmailDuplicate> findDuplicateEmails(Long surveyId);
+
+    int removeDuplicateEmails(Long surveyId);
+
+    int updateEmailStatus(Long surveyId, Status status, Status fromStatus, String domain);
+
+    int updateEmailStatus(Long surveyId, Status status, List<String> emails);
+
+    void submitResponse(Long surveyId, ResponseSubmission submission);
+
+    List<QuestionResult> getResults(Long surveyId);
+
+    long rebuildResults(Long surveyId);
+
+    int rebuildAllResults();
+
+    FullResponse refreshSnapshot(Long surveyId);
+
+    int refreshSnapshots(Long setid);
+
 
 //    List<SetNameDto> getSet(String setName);
 }
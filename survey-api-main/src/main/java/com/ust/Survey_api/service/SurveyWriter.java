@@ -0,0 +1,30 @@
+package com.ust.Survey_api.service;
+
+import com.ust.Survey_api.model.Survey;
+import com.ust.Survey_api.model.SurveySetSnapshot;
+import com.ust.Survey_api.repository.SurveyRepository;
+import com.ust.Survey_api.repository.SurveySetSnapshotRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+// Stores a new survey together with the first snapshot of its set, so there is never a survey without one. The set
+// is fetched by the caller beforehand; nothing here waits on AssessmentService while the transaction is open
+@Component
+public class SurveyWriter {
+
+    @Autowired
+    private SurveyRepository repo;
+
+    @Autowired
+    private SurveySetSnapshotRepository snapshotRepository;
+
+    @Transactional
+    public Survey create(Survey survey, byte[] setData) {
+        Survey saved = repo.save(survey);
+        snapshotRepository.save(new SurveySetSnapshot(saved.getSurveyid(), saved.getSetid(), 1, LocalDateTime.now(), setData));
+        return saved;
+    }
+}
@@ -0,0 +1,188 @@
+package com.ust.Survey_api.Benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import com.ust.Survey_api.feign.Answer;
+import com.ust.Survey_api.feign.AssessmentClient;
+import com.ust.Survey_api.feign.SetNameDto;
+import feign.Client;
+import feign.Feign;
+import feign.Request;
+import feign.hc5.ApacheHttp5Client;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.http.HttpMessageConverters;
+import org.springframework.cloud.openfeign.support.ResponseEntityDecoder;
+import org.springframework.cloud.openfeign.support.SpringDecoder;
+import org.springframework.cloud.openfeign.support.SpringMvcContract;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// getSet against a local stub AssessmentService: Feign's default HttpURLConnection client versus
+// pooled HttpClient 5 with gzip. Run with: mvn test -Pbenchmark
+@Tag("benchmark")
+class FeignTransportBenchmarkTest {
+
+    private static final int THREADS = 32;
+    private static final int WARMUP_CALLS = 2_000;
+    private static final int MEASURED_CALLS = 10_000;
+    private static final int QUESTIONS = 50;
+    // Loopback has no bandwidth limit, so the stub holds each response as long as a 100 Mbit/s link would take to carry it
+    private static final long LINK_BYTES_PER_SECOND = 12_500_000;
+
+    static {
+        // Without it, Nagle's algorithm plus delayed ACKs caps the stub at a few hundred responses a second
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+
+    private HttpServer server;
+
+    private ExecutorService serverExecutor;
+
+    private byte[] json;
+    private byte[] gzip;
+
+    private final AtomicLong bytesSent = new AtomicLong();
+    // One client port per connection
+    private final Set<Integer> clientPorts = ConcurrentHashMap.newKeySet();
+
+    @BeforeEach
+    void startStub() throws IOException {
+        json = new ObjectMapper().writeValueAsBytes(questionSet());
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(compressed)) {
+            out.write(json);
+        }
+        gzip = compressed.toByteArray();
+
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 512);
+        serverExecutor = Executors.newFixedThreadPool(THREADS);
+        server.setExecutor(serverExecutor);
+        server.createContext("/assessments/set-id/", this::serveSet);
+        server.start();
+    }
+
+    @AfterEach
+    void stopStub() {
+        server.stop(0);
+        serverExecutor.shutdownNow();
+    }
+
+    @Test
+    void pooledGzipTransportShouldSendFewerBytes() throws Exception {
+        AssessmentClient plain = client(new Client.Default(null, null));
+        try (CloseableHttpClient httpClient = pooledHttpClient()) {
+            AssessmentClient pooled = client(new ApacheHttp5Client(httpClient));
+
+            run(plain, WARMUP_CALLS);
+            run(pooled, WARMUP_CALLS);
+
+            Result before = run(plain, MEASURED_CALLS);
+            Result after = run(pooled, MEASURED_CALLS);
+
+            System.out.printf("HttpURLConnection:      %,.0f calls/s, %,d bytes, %d connections%n", before.callsPerSecond(), before.bytes(), before.connections());
+            System.out.printf("HttpClient 5 pool+gzip: %,.0f calls/s, %,d bytes, %d connections%n", after.callsPerSecond(), after.bytes(), after.connections());
+            assertTrue(after.bytes() * 3 < before.bytes());
+            assertTrue(after.connections() <= 50);
+        }
+    }
+
+    private Result run(AssessmentClient client, int calls) throws Exception {
+        bytesSent.set(0);
+        clientPorts.clear();
+        ExecutorService callers = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+
+        long start = System.nanoTime();
+        for (int i = 0; i < calls; i++) {
+            long setid = i % 100;
+            futures.add(callers.submit(() -> assertEquals(QUESTIONS, client.getSet(setid).getBody().size())));
+        }
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        long elapsed = System.nanoTime() - start;
+        callers.shutdown();
+
+        return new Result(calls * 1_000_000_000.0 / elapsed, bytesSent.get(), clientPorts.size());
+    }
+
+    private void serveSet(HttpExchange exchange) throws IOException {
+        clientPorts.add(exchange.getRemoteAddress().getPort());
+        String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+        boolean gzipped = acceptEncoding != null && acceptEncoding.contains("gzip");
+        byte[] body = gzipped ? gzip : json;
+
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        if (gzipped) {
+            exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+        }
+        try {
+            TimeUnit.NANOSECONDS.sleep(body.length * 1_000_000_000L / LINK_BYTES_PER_SECOND);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        bytesSent.addAndGet(body.length);
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private AssessmentClient client(Client transport) {
+        return Feign.builder()
+                .client(transport)
+                .contract(new SpringMvcContract())
+                .decoder(new ResponseEntityDecoder(new SpringDecoder(() -> new HttpMessageConverters(new MappingJackson2HttpMessageConverter()))))
+                .options(new Request.Options(1, TimeUnit.SECONDS, 3, TimeUnit.SECONDS, true))
+                .target(AssessmentClient.class, "http://localhost:" + server.getAddress().getPort());
+    }
+
+    // Same pool limits as spring.cloud.openfeign.httpclient in application.yml; HttpClient 5 asks for gzip by default
+    private static CloseableHttpClient pooledHttpClient() {
+        return HttpClients.custom()
+                .setConnectionManager(PoolingHttpClientConnectionManagerBuilder.create()
+                        .setMaxConnTotal(200)
+                        .setMaxConnPerRoute(50)
+                        .build())
+                .build();
+    }
+
+    private static List<SetNameDto> questionSet() {
+        List<SetNameDto> questions = new ArrayList<>();
+        for (long q = 0; q < QUESTIONS; q++) {
+            List<Answer> answers = new ArrayList<>();
+            for (long a = 0; a < 4; a++) {
+                answers.add(new Answer(q * 4 + a, "answer " + a + " to question " + q, "suggestion for answer " + a + " to question " + q));
+            }
+            questions.add(new SetNameDto(q, "How would you rate question number " + q + " of this assessment?", answers));
+        }
+        return questions;
+    }
+
+    private record Result(double callsPerSecond, long bytes, int connections) {
+    }
+}
@@ -2,12 +2,22 @@ package com.ust.Survey_api.Controller;
 
 
 import com.ust.Survey_api.controller.SurveyController;
+import com.ust.Survey_api.dto.EmailDuplicate;
+import com.ust.Survey_api.dto.AnswerSelection;
+import com.ust.Survey_api.dto.EmailImportResult;
+import com.ust.Survey_api.dto.QuestionResult;
+import com.ust.Survey_api.dto.ResponseSubmission;
+import com.ust.Survey_api.exception.InvalidResponseException;
+import com.ust.Survey_api.exception.ResponseQueueFullException;
+import com.ust.Survey_api.exception.SetDataUnavailableException;
 import com.ust.Survey_api.exception.SetNotFoundException;
 import com.ust.Survey_api.feign.FullResponse;
 import com.ust.Survey_api.feign.SurveyRequestDto;
 import com.ust.Survey_api.model.Email;
+import com.ust.Survey_api.model.Status;
 import com.ust.Survey_api.model.Survey;
 import com.ust.Survey_api.repository.SurveyRepository;
+import com.ust.Survey_api.service.EmailImporter;
 import com.ust.Survey_api.service.SurveyService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -17,6 +27,9 @@ import org.mockito.MockitoAnnotations;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
@@ -93,6 +106,16 @@ public class SurveyControllerTest {
         assertNotNull(response.getBody());
         assertTrue(response.getBody() instanceof FullResponse);
         assertEquals(1L, ((FullResponse) response.getBody()).getSurveyid());
+        verify(surveyService, times(1)).getSurveyById(1L);
+    }
+
+    @Test
+    public void testHandleSetDataUnavailableException() {
+        ResponseEntity<String> response = surveyController.handleSetDataUnavailableException(
+                new SetDataUnavailableException("Timed out waiting for set 1"));
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, response.getStatusCode());
+        assertEquals("Timed out waiting for set 1", response.getBody());
     }
 
     @Test
@@ -157,5 +180,91 @@ public class SurveyControllerTest {
 
         assertEquals("surveyId not found", exception.getMessage());
     }
-}
 
+    @Test
+    public void testRefreshSnapshot() {
+        FullResponse surveyResponse = new FullResponse(1L, 1L, "Requestor", "CompanyName", 1L, null, null, Collections.emptyList());
+        when(surveyService.refreshSnapshot(1L)).thenReturn(surveyResponse);
+
+        ResponseEntity<FullResponse> response = surveyController.refreshSnapshot(1L);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(surveyResponse, response.getBody());
+    }
+
+    @Test
+    public void testRefreshSnapshots() {
+        when(surveyService.refreshSnapshots(1L)).thenReturn(3);
+
+        ResponseEntity<Integer> response = surveyController.refreshSnapshots(1L);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(3, response.getBody());
+    }
+
+    @Test
+    public void testImportEmails_PicksFormatFromContentType() {
+        EmailImportResult result = new EmailImportResult(1, 0, new ArrayList<>());
+        when(surveyService.importEmails(eq(1L), any(), any())).thenReturn(result);
+        byte[] body = "a@example.com".getBytes(StandardCharsets.UTF_8);
+
+        ResponseEntity<EmailImportResult> response = surveyController.importEmails(1L, "application/x-ndjson", new ByteArrayInputStream(body));
+        surveyController.importEmails(1L, "text/csv; charset=UTF-8", new ByteArrayInputStream(body));
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(result, response.getBody());
+        verify(surveyService).importEmails(eq(1L), any(), eq(EmailImporter.Format.NDJSON));
+        verify(surveyService).importEmails(eq(1L), any(), eq(EmailImporter.Format.CSV));
+    }
+
+    @Test
+    public void testDuplicateEmails() {
+        List<EmailDuplicate> duplicates = List.of(new EmailDuplicate("a@example.com", List.of(1L, 2L)));
+        when(surveyService.findDuplicateEmails(1L)).thenReturn(duplicates);
+        when(surveyService.removeDuplicateEmails(1L)).thenReturn(1);
+
+        assertEquals(duplicates, surveyController.getDuplicateEmails(1L).getBody());
+        assertEquals(1, surveyController.removeDuplicateEmails(1L).getBody());
+    }
+
+    @Test
+    public void testUpdateEmailStatus() {
+        when(surveyService.updateEmailStatus(1L, Status.APPROVED, null, "example.com")).thenReturn(5);
+        when(surveyService.updateEmailStatus(1L, Status.APPROVED, List.of("a@example.com"))).thenReturn(1);
+
+        assertEquals(5, surveyController.updateEmailStatus(1L, Status.APPROVED, null, "example.com").getBody());
+        assertEquals(1, surveyController.updateEmailStatusByAddress(1L, Status.APPROVED, List.of("a@example.com")).getBody());
+    }
+
+    @Test
+    public void testSubmitResponse() {
+        ResponseSubmission submission = new ResponseSubmission("a@example.com", List.of(new AnswerSelection(10L, 100L)));
+
+        ResponseEntity<Void> response = surveyController.submitResponse(1L, submission);
+
+        assertEquals(HttpStatus.ACCEPTED, response.getStatusCode());
+        verify(surveyService).submitResponse(1L, submission);
+    }
+
+    @Test
+    public void testHandleResponseExceptions() {
+        ResponseEntity<String> invalid = surveyController.handleInvalidResponseException(new InvalidResponseException("Answer 1 is not an option"));
+        ResponseEntity<String> full = surveyController.handleResponseQueueFullException(new ResponseQueueFullException("retry shortly"));
+
+        assertEquals(HttpStatus.BAD_REQUEST, invalid.getStatusCode());
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, full.getStatusCode());
+        assertEquals("1", full.getHeaders().getFirst("Retry-After"));
+    }
+
+    @Test
+    public void testResults() {
+        List<QuestionResult> results = List.of(new QuestionResult(10L, 0, List.of()));
+        when(surveyService.getResults(1L)).thenReturn(results);
+        when(surveyService.rebuildResults(1L)).thenReturn(12L);
+        when(surveyService.rebuildAllResults()).thenReturn(3);
+
+        assertEquals(results, surveyController.getResults(1L).getBody());
+        assertEquals(12L, surveyController.rebuildResults(1L).getBody());
+        assertEquals(3, surveyController.rebuildAllResults().getBody());
+    }
+}
@@ -0,0 +1,75 @@
+package com.ust.Survey_api.config;
+
+import com.ust.Survey_api.model.IdSequences;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// AssessmentService carries the same seeder and the same tests; keep the two in step
+@DataJpaTest
+@ActiveProfiles("h2")
+@Import(IdSequenceSeeder.class)
+class IdSequenceSeederTest {
+
+    private static final String SEGMENT = IdSequences.EMAIL;
+    private static final String LEGACY_ROW = "insert into email (id, email) values (?, 'legacy@example.com')";
+
+    @Autowired
+    private IdSequenceSeeder idSequenceSeeder;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void seed_shouldMoveSequencePastExistingIds() {
+        jdbcTemplate.update(LEGACY_ROW, 5000);
+
+        idSequenceSeeder.afterSingletonsInstantiated();
+
+        assertEquals(5001L, nextValue());
+    }
+
+    @Test
+    void seed_shouldCreateMissingRow() {
+        jdbcTemplate.update(LEGACY_ROW, 70);
+        jdbcTemplate.update("delete from " + IdSequences.TABLE + " where " + IdSequences.NAME_COLUMN + " = ?", SEGMENT);
+
+        idSequenceSeeder.afterSingletonsInstantiated();
+
+        assertEquals(71L, nextValue());
+    }
+
+    @Test
+    void seed_shouldNeverLowerSequence() {
+        jdbcTemplate.update(LEGACY_ROW, 5000);
+        idSequenceSeeder.afterSingletonsInstantiated();
+        jdbcTemplate.update("update " + IdSequences.TABLE + " set " + IdSequences.VALUE_COLUMN + " = 9000 where "
+                + IdSequences.NAME_COLUMN + " = ?", SEGMENT);
+
+        idSequenceSeeder.afterSingletonsInstantiated();
+
+        assertEquals(9000L, nextValue());
+    }
+
+    @Test
+    void seed_shouldKeepOneRowWhenRunAgain() {
+        jdbcTemplate.update(LEGACY_ROW, 5000);
+
+        idSequenceSeeder.afterSingletonsInstantiated();
+        idSequenceSeeder.afterSingletonsInstantiated();
+
+        assertEquals(1, jdbcTemplate.queryForObject("select count(*) from " + IdSequences.TABLE + " where "
+                + IdSequences.NAME_COLUMN + " = ?", Integer.class, SEGMENT));
+        assertEquals(5001L, nextValue());
+    }
+
+    private Long nextValue() {
+        return jdbcTemplate.queryForObject("select " + IdSequences.VALUE_COLUMN + " from " + IdSequences.TABLE
+                + " where " + IdSequences.NAME_COLUMN + " = ?", Long.class, SEGMENT);
+    }
+}
@@ -0,0 +1,35 @@
+package com.ust.Survey_api.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SetFetchConfigTest {
+
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withUserConfiguration(SetFetchConfig.class)
+            .withPropertyValues("survey.set-fetch.concurrency=3", "survey.set-fetch.queue-capacity=20");
+
+    @Test
+    void platformThreads_shouldBoundQueueAndRunOverflowOnCaller() {
+        contextRunner.withPropertyValues("spring.threads.virtual.enabled=false").run(context -> {
+            ThreadPoolTaskExecutor executor = context.getBean(SetFetchConfig.SET_FETCH_EXECUTOR, ThreadPoolTaskExecutor.class);
+            assertEquals(3, executor.getMaxPoolSize());
+            assertEquals(20, executor.getQueueCapacity());
+            assertInstanceOf(ThreadPoolExecutor.CallerRunsPolicy.class, executor.getThreadPoolExecutor().getRejectedExecutionHandler());
+        });
+    }
+
+    @Test
+    void virtualThreads_shouldLimitWaitingCallsLikePlatformQueue() {
+        contextRunner.withPropertyValues("spring.threads.virtual.enabled=true").run(context -> {
+            SimpleAsyncTaskExecutor executor = context.getBean(SetFetchConfig.SET_FETCH_EXECUTOR, SimpleAsyncTaskExecutor.class);
+            assertEquals(23, executor.getConcurrencyLimit());
+        });
+    }
+}
@@ -0,0 +1,212 @@
+package com.ust.Survey_api.loadbalancer;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import com.ust.Survey_api.config.LoadBalancerConfig;
+import com.ust.Survey_api.feign.AssessmentClient;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.support.LoadBalancerClientFactory;
+import org.springframework.cloud.openfeign.EnableFeignClients;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+// Three stub AssessmentService instances on different local ports behind the real Feign client and load balancer
+@SpringBootTest(classes = AssessmentLoadBalancingTest.TestApp.class, webEnvironment = SpringBootTest.WebEnvironment.NONE,
+        properties = {
+                "spring.cloud.loadbalancer.health-check.interval=100ms",
+                "survey.assessment.health-check-timeout=PT0.2S",
+                // Short, so a cold first call doesn't keep the fast instance out of rotation for the whole test
+                "survey.assessment.idle-decay=PT0.2S"
+        })
+class AssessmentLoadBalancingTest {
+
+    private static final Stub fast = new Stub(0);
+    private static final Stub slow = new Stub(40);
+    private static final Stub down = new Stub(0);
+
+    @Autowired
+    private AssessmentClient client;
+
+    @Autowired
+    private LoadBalancerClientFactory loadBalancerClientFactory;
+
+    @DynamicPropertySource
+    static void instances(DynamicPropertyRegistry registry) {
+        List<Stub> stubs = List.of(fast, slow, down);
+        for (int i = 0; i < stubs.size(); i++) {
+            Stub stub = stubs.get(i);
+            registry.add("spring.cloud.discovery.client.simple.instances.Assessment[" + i + "].uri", stub::uri);
+        }
+    }
+
+    @AfterAll
+    static void stopStubs() {
+        fast.stop();
+        slow.stop();
+        down.stop();
+    }
+
+    @BeforeEach
+    void resetStubs() throws InterruptedException {
+        fast.healthy = true;
+        slow.healthy = true;
+        down.healthy = false;
+        awaitInRotation(fast, slow);
+        fast.calls.set(0);
+        slow.calls.set(0);
+        down.calls.set(0);
+    }
+
+    @Test
+    void shouldPreferFastInstanceAndSkipUnhealthyOne() {
+        for (int i = 0; i < 100; i++) {
+            client.getSet(1L);
+        }
+
+        assertEquals(0, down.calls.get());
+        assertTrue(fast.calls.get() > 3 * slow.calls.get(), "fast=" + fast.calls + " slow=" + slow.calls);
+    }
+
+    @Test
+    void shouldStopRoutingToInstanceThatFailsHealthChecks() throws InterruptedException {
+        fast.healthy = false;
+        awaitInRotation(slow);
+
+        for (int i = 0; i < 20; i++) {
+            client.getSet(1L);
+        }
+
+        assertEquals(0, fast.calls.get());
+        assertEquals(0, down.calls.get());
+        assertEquals(20, slow.calls.get());
+    }
+
+    @Test
+    void shouldTakeSlowHealthEndpointOutOfRotation() throws InterruptedException {
+        fast.healthDelayMillis = 500;
+        try {
+            awaitInRotation(slow);
+            fast.calls.set(0);
+
+            for (int i = 0; i < 20; i++) {
+                client.getSet(1L);
+            }
+
+            assertEquals(0, fast.calls.get());
+            assertEquals(20, slow.calls.get());
+        } finally {
+            fast.healthDelayMillis = 0;
+        }
+    }
+
+    // Polls the instances the health checks currently let through until they are exactly the expected ones
+    private void awaitInRotation(Stub... expected) throws InterruptedException {
+        ServiceInstanceListSupplier supplier =
+                loadBalancerClientFactory.getInstance(LoadBalancerConfig.ASSESSMENT, ServiceInstanceListSupplier.class);
+        Set<String> uris = Arrays.stream(expected).map(Stub::uri).collect(Collectors.toSet());
+        Set<String> observed = Set.of();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (System.nanoTime() < deadline) {
+            observed = supplier.get().blockFirst(Duration.ofSeconds(1)).stream()
+                    .map(instance -> instance.getUri().toString())
+                    .collect(Collectors.toSet());
+            if (observed.equals(uris)) {
+                return;
+            }
+            TimeUnit.MILLISECONDS.sleep(20);
+        }
+        fail("in rotation: " + observed + ", expected: " + uris);
+    }
+
+    @SpringBootConfiguration
+    @EnableAutoConfiguration(exclude = {DataSourceAutoConfiguration.class, HibernateJpaAutoConfiguration.class})
+    @EnableFeignClients(clients = AssessmentClient.class)
+    @Import(LoadBalancerConfig.class)
+    static class TestApp {
+    }
+
+    private static class Stub {
+
+        private final HttpServer server;
+
+        private final long delayMillis;
+
+        private final AtomicInteger calls = new AtomicInteger();
+
+        private volatile boolean healthy = true;
+
+        private volatile long healthDelayMillis;
+
+        Stub(long delayMillis) {
+            this.delayMillis = delayMillis;
+            try {
+                server = HttpServer.create(new InetSocketAddress("localhost", 0), 64);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+            server.createContext("/actuator/health", exchange -> {
+                sleep(healthDelayMillis);
+                respond(exchange, healthy ? 200 : 503, healthy ? "{\"status\":\"UP\"}" : "{\"status\":\"DOWN\"}");
+            });
+            server.createContext("/assessments/set-id/", exchange -> {
+                calls.incrementAndGet();
+                sleep(this.delayMillis);
+                respond(exchange, 200, "[]");
+            });
+            server.setExecutor(Executors.newCachedThreadPool());
+            server.start();
+        }
+
+        String uri() {
+            return "http://localhost:" + server.getAddress().getPort();
+        }
+
+        void stop() {
+            server.stop(0);
+        }
+
+        private static void sleep(long millis) {
+            try {
+                TimeUnit.MILLISECONDS.sleep(millis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+            byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(status, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        }
+    }
+}
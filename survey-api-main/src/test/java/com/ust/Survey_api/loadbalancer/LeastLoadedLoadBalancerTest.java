@@ -0,0 +1,81 @@
+package com.ust.Survey_api.loadbalancer;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.CompletionContext;
+import org.springframework.cloud.client.loadbalancer.DefaultRequest;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.RequestDataContext;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class LeastLoadedLoadBalancerTest {
+
+    @SuppressWarnings("unchecked")
+    private final LeastLoadedLoadBalancer loadBalancer =
+            new LeastLoadedLoadBalancer(mock(ObjectProvider.class), Duration.ofSeconds(5), Duration.ofSeconds(1));
+
+    private final ServiceInstance first = new DefaultServiceInstance("Assessment-1", "Assessment", "localhost", 9000, false);
+    private final ServiceInstance second = new DefaultServiceInstance("Assessment-2", "Assessment", "localhost", 9010, false);
+
+    @Test
+    void choose_shouldAvoidInstanceWithCallsInFlight() {
+        Request<Object> request = new DefaultRequest<>(new RequestDataContext());
+        loadBalancer.onStartRequest(request, new DefaultResponse(first));
+
+        for (int i = 0; i < 10; i++) {
+            assertEquals(second, loadBalancer.choose(List.of(first, second)).getServer());
+        }
+    }
+
+    @Test
+    void choose_shouldAvoidInstanceThatFailed() {
+        call(first, CompletionContext.Status.FAILED);
+        call(second, CompletionContext.Status.SUCCESS);
+
+        assertEquals(second, loadBalancer.choose(List.of(first, second)).getServer());
+    }
+
+    @Test
+    void choose_shouldTryFailedInstanceAgainOnceItsAverageFades() {
+        @SuppressWarnings("unchecked")
+        LeastLoadedLoadBalancer fading = new LeastLoadedLoadBalancer(mock(ObjectProvider.class), Duration.ofSeconds(5), Duration.ofMillis(1));
+        call(fading, first, CompletionContext.Status.FAILED);
+        call(fading, second, CompletionContext.Status.SUCCESS);
+
+        boolean retried = false;
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (!retried && System.nanoTime() < deadline) {
+            retried = first.equals(fading.choose(List.of(first, second)).getServer());
+        }
+
+        assertTrue(retried);
+    }
+
+    @Test
+    void choose_shouldReturnEmptyResponseWithoutInstances() {
+        Response<ServiceInstance> response = loadBalancer.choose(List.<ServiceInstance>of());
+
+        assertFalse(response.hasServer());
+    }
+
+    private void call(ServiceInstance instance, CompletionContext.Status status) {
+        call(loadBalancer, instance, status);
+    }
+
+    private static void call(LeastLoadedLoadBalancer loadBalancer, ServiceInstance instance, CompletionContext.Status status) {
+        Request<Object> request = new DefaultRequest<>(new RequestDataContext());
+        DefaultResponse lbResponse = new DefaultResponse(instance);
+        loadBalancer.onStartRequest(request, lbResponse);
+        loadBalancer.onComplete(new CompletionContext<>(status, request, lbResponse));
+    }
+}
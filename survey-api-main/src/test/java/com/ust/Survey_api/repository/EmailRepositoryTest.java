@@ -0,0 +1,124 @@
+package com.ust.Survey_api.repository;
+
+import com.ust.Survey_api.model.Email;
+import com.ust.Survey_api.model.Status;
+import com.ust.Survey_api.model.Survey;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@ActiveProfiles("h2")
+class EmailRepositoryTest {
+
+    @Autowired
+    private EmailRepository emailRepository;
+
+    @Autowired
+    private SurveyRepository surveyRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private Long first;
+    private Long second;
+
+    @BeforeEach
+    void setUp() {
+        first = surveyRepository.save(survey()).getSurveyid();
+        second = surveyRepository.save(survey()).getSurveyid();
+    }
+
+    @Test
+    void save_shouldStoreHashOfNormalisedAddress() {
+        Email saved = emailRepository.save(new Email(null, "Foo@Example.com", first, Status.PENDING));
+        entityManager.flush();
+
+        assertEquals(Email.hash("foo@example.com"), saved.getEmailHash());
+        assertTrue(emailRepository.existsBySurveyidAndEmailHash(first, Email.hash("FOO@example.com")));
+        assertFalse(emailRepository.existsBySurveyidAndEmailHash(second, Email.hash("foo@example.com")));
+    }
+
+    @Test
+    void findDuplicateHashesBySurveyid_shouldReportAddressesStoredTwiceInThatSurvey() {
+        emailRepository.saveAll(List.of(
+                new Email(null, "a@example.com", first, Status.PENDING),
+                new Email(null, "A@example.com", first, Status.PENDING),
+                new Email(null, "b@example.com", first, Status.PENDING),
+                new Email(null, "b@example.com", second, Status.PENDING)));
+        entityManager.flush();
+
+        assertEquals(List.of(Email.hash("a@example.com")), emailRepository.findDuplicateHashesBySurveyid(first));
+        assertEquals(3, emailRepository.findEmailHashesBySurveyid(first).size());
+    }
+
+    @Test
+    void findBySurveyidAndEmailHashIsNullAndEmailIsNotNull_shouldFindRowsWrittenBeforeHashing() {
+        Email saved = emailRepository.save(new Email(null, "a@example.com", first, Status.PENDING));
+        entityManager.flush();
+        entityManager.createQuery("update Email e set e.emailHash = null where e.id = :id").setParameter("id", saved.getId()).executeUpdate();
+        entityManager.clear();
+
+        List<Email> unhashed = emailRepository.findBySurveyidAndEmailHashIsNullAndEmailIsNotNull(first);
+
+        assertEquals(List.of(saved.getId()), unhashed.stream().map(Email::getId).toList());
+    }
+
+    @Test
+    void updateStatusBySurveyid_shouldChangeOnlyMatchingRowsOfThatSurvey() {
+        emailRepository.saveAll(List.of(
+                new Email(null, "a@example.com", first, Status.PENDING),
+                new Email(null, "b@Example.com", first, Status.PENDING),
+                new Email(null, "c@other.com", first, Status.PENDING),
+                new Email(null, "d@example.com", first, Status.APPROVED),
+                new Email(null, "e@example.com", second, Status.PENDING)));
+        entityManager.flush();
+
+        assertEquals(2, emailRepository.updateStatusBySurveyid(first, Status.APPROVED, Status.PENDING, "%@example.com"));
+        assertEquals(1, emailRepository.updateStatusBySurveyid(first, Status.APPROVED, null, null));
+        assertEquals(0, emailRepository.updateStatusBySurveyid(first, Status.APPROVED, null, null));
+        assertEquals(4, emailRepository.updateStatusBySurveyid(first, Status.PENDING, null, null));
+    }
+
+    @Test
+    void updateStatusBySurveyid_shouldTreatLikeWildcardsInSuffixLiterally() {
+        emailRepository.saveAll(List.of(
+                new Email(null, "a@ex_mple.com", first, Status.PENDING),
+                new Email(null, "b@example.com", first, Status.PENDING)));
+        entityManager.flush();
+
+        assertEquals(1, emailRepository.updateStatusBySurveyid(first, Status.APPROVED, null, "%@ex!_mple.com"));
+    }
+
+    @Test
+    void updateStatusBySurveyidAndEmailHashIn_shouldChangeListedAddressesOnly() {
+        emailRepository.saveAll(List.of(
+                new Email(null, "a@example.com", first, Status.PENDING),
+                new Email(null, "b@example.com", first, Status.PENDING),
+                new Email(null, "a@example.com", second, Status.PENDING)));
+        entityManager.flush();
+
+        int updated = emailRepository.updateStatusBySurveyidAndEmailHashIn(first, Status.APPROVED,
+                List.of(Email.hash("A@example.com"), Email.hash("missing@example.com")));
+        entityManager.clear();
+
+        assertEquals(1, updated);
+        assertEquals(List.of(Status.APPROVED, Status.PENDING),
+                emailRepository.findBySurveyid(first).stream().sorted(Comparator.comparing(Email::getEmail)).map(Email::getStatus).toList());
+        assertEquals(Status.PENDING, emailRepository.findBySurveyid(second).get(0).getStatus());
+    }
+
+    private static Survey survey() {
+        return new Survey(null, "John Doe", "Tech Corp", 1L, LocalDate.now(), LocalDate.now().plusDays(30), new ArrayList<>());
+    }
+}
@@ -0,0 +1,81 @@
+package com.ust.Survey_api.repository;
+
+import com.ust.Survey_api.dto.AnswerSelection;
+import com.ust.Survey_api.model.Email;
+import com.ust.Survey_api.model.Status;
+import com.ust.Survey_api.model.Survey;
+import com.ust.Survey_api.model.SurveyResponse;
+import com.ust.Survey_api.dto.AnswerCount;
+import com.ust.Survey_api.dto.QuestionResult;
+import com.ust.Survey_api.service.AnswerTallyService;
+import com.ust.Survey_api.service.ResponseIngestor;
+import com.ust.Survey_api.service.ResponseWriter;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// ResponseWriter against real tables: the locking select, the batched inserts, the tallies and the status UPDATE
+@DataJpaTest
+@ActiveProfiles("h2")
+@Import({ResponseWriter.class, AnswerTallyService.class})
+class ResponseWriterTest {
+
+    @Autowired
+    private ResponseWriter writer;
+
+    @Autowired
+    private SurveyRepository surveyRepository;
+
+    @Autowired
+    private EmailRepository emailRepository;
+
+    @Autowired
+    private SurveyResponseRepository responseRepository;
+
+    @Autowired
+    private AnswerTallyService answerTallies;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Test
+    void write_shouldStoreAnswersAndMarkRecipientsResponded() {
+        Long surveyid = surveyRepository.save(new Survey(null, "John Doe", "Tech Corp", 1L, LocalDate.now(), LocalDate.now().plusDays(30), new ArrayList<>())).getSurveyid();
+        Long first = emailRepository.save(new Email(null, "a@example.com", surveyid, Status.PENDING)).getId();
+        Long second = emailRepository.save(new Email(null, "b@example.com", surveyid, Status.PENDING)).getId();
+        Long done = emailRepository.save(new Email(null, "c@example.com", surveyid, Status.RESPONDED)).getId();
+        entityManager.flush();
+        LocalDateTime now = LocalDateTime.now();
+
+        int stored = writer.write(List.of(
+                new ResponseIngestor.Submission(surveyid, first, List.of(new AnswerSelection(10L, 100L), new AnswerSelection(11L, 110L)), now),
+                new ResponseIngestor.Submission(surveyid, second, List.of(new AnswerSelection(10L, 101L)), now),
+                // the same recipient again in the batch, and one who responded earlier
+                new ResponseIngestor.Submission(surveyid, first, List.of(new AnswerSelection(10L, 101L)), now),
+                new ResponseIngestor.Submission(surveyid, done, List.of(new AnswerSelection(10L, 101L)), now)));
+        // What the commit would do at the end of write's transaction
+        entityManager.flush();
+        entityManager.clear();
+
+        assertEquals(2, stored);
+        List<SurveyResponse> rows = responseRepository.findBySurveyid(surveyid);
+        assertEquals(3, rows.size());
+        assertEquals(List.of(100L, 101L, 110L), rows.stream().map(SurveyResponse::getAnswerId).sorted(Comparator.naturalOrder()).toList());
+        assertEquals(Status.RESPONDED, emailRepository.findById(first).orElseThrow().getStatus());
+        assertEquals(Status.RESPONDED, emailRepository.findById(second).orElseThrow().getStatus());
+        assertEquals(List.of(
+                new QuestionResult(10L, 2, List.of(new AnswerCount(100L, 1), new AnswerCount(101L, 1))),
+                new QuestionResult(11L, 1, List.of(new AnswerCount(110L, 1)))), answerTallies.results(surveyid));
+    }
+}
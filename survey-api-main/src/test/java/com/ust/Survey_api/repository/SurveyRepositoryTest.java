@@ -0,0 +1,80 @@
+package com.ust.Survey_api.repository;
+
+import com.ust.Survey_api.model.Survey;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@ActiveProfiles("h2")
+class SurveyRepositoryTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2024, 6, 1);
+
+    @Autowired
+    private SurveyRepository surveyRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void findDueIds_shouldReturnOldestDueSurveysNotYetExpired() {
+        Long dueLater = save(TODAY.minusDays(1), false);
+        Long dueFirst = save(TODAY.minusDays(5), false);
+        save(TODAY.minusDays(9), true);
+        save(TODAY, false);
+
+        assertEquals(List.of(dueFirst, dueLater), surveyRepository.findDueIds(TODAY, PageRequest.of(0, 10)));
+        assertEquals(List.of(dueFirst), surveyRepository.findDueIds(TODAY, PageRequest.of(0, 1)));
+    }
+
+    @Test
+    void markExpired_shouldCountOnlySurveysItChanged() {
+        Long due = save(TODAY.minusDays(1), false);
+        Long alreadyExpired = save(TODAY.minusDays(2), true);
+
+        assertEquals(1, surveyRepository.markExpired(List.of(due, alreadyExpired)));
+        entityManager.clear();
+        assertTrue(surveyRepository.findBySurveyid(due).isExpired());
+        assertEquals(0, surveyRepository.markExpired(List.of(due)));
+    }
+
+    @Test
+    void findActive_shouldLeaveOutExpiredAndOverdueSurveys() {
+        Long active = save(TODAY, false);
+        save(TODAY.minusDays(1), false);
+        save(TODAY.plusDays(3), true);
+
+        assertEquals(List.of(active), surveyRepository.findActive(TODAY).stream().map(Survey::getSurveyid).toList());
+    }
+
+    @Test
+    void schema_shouldIndexExpiredAndExpireTime() {
+        List<String> columns = jdbcTemplate.queryForList(
+                "select column_name from information_schema.index_columns where index_name = 'IDX_DASHBOARD_EXPIRED_EXPIRE_TIME' order by ordinal_position",
+                String.class);
+
+        assertEquals(List.of("EXPIRED", "EXPIRE_TIME"), columns);
+    }
+
+    private Long save(LocalDate expireTime, boolean expired) {
+        Survey survey = new Survey(null, "John Doe", "Tech Corp", 1L, expireTime.minusDays(30), expireTime, new ArrayList<>());
+        survey.setExpired(expired);
+        Long surveyid = surveyRepository.save(survey).getSurveyid();
+        entityManager.flush();
+        return surveyid;
+    }
+}
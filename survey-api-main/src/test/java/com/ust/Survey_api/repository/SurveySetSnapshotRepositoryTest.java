@@ -0,0 +1,45 @@
+package com.ust.Survey_api.repository;
+
+import com.ust.Survey_api.model.SurveySetSnapshot;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@ActiveProfiles("h2")
+class SurveySetSnapshotRepositoryTest {
+
+    @Autowired
+    private SurveySetSnapshotRepository snapshotRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Test
+    void refreshBySetid_shouldReplaceDataAndBumpVersionOfThatSetOnly() {
+        LocalDateTime captured = LocalDateTime.of(2024, 1, 1, 0, 0);
+        snapshotRepository.save(new SurveySetSnapshot(1L, 7L, 1, captured, new byte[]{1}));
+        snapshotRepository.save(new SurveySetSnapshot(2L, 7L, 3, captured, new byte[]{1}));
+        snapshotRepository.save(new SurveySetSnapshot(3L, 8L, 1, captured, new byte[]{1}));
+        entityManager.flush();
+
+        int refreshed = snapshotRepository.refreshBySetid(7L, new byte[]{2, 2}, captured.plusDays(1));
+        entityManager.clear();
+
+        assertEquals(2, refreshed);
+        SurveySetSnapshot first = snapshotRepository.findById(1L).orElseThrow();
+        assertEquals(2, first.getVersion());
+        assertArrayEquals(new byte[]{2, 2}, first.getData());
+        assertEquals(captured.plusDays(1), first.getCapturedAt());
+        assertEquals(4, snapshotRepository.findById(2L).orElseThrow().getVersion());
+        SurveySetSnapshot other = snapshotRepository.findById(3L).orElseThrow();
+        assertEquals(1, other.getVersion());
+        assertArrayEquals(new byte[]{1}, other.getData());
+    }
+}
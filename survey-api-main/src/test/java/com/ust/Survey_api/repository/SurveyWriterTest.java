@@ -0,0 +1,61 @@
+package com.ust.Survey_api.repository;
+
+import com.ust.Survey_api.model.Survey;
+import com.ust.Survey_api.service.SurveyWriter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// SurveyWriter with its own transactions, as ServiceImpl calls it
+@DataJpaTest
+@ActiveProfiles("h2")
+@Import(SurveyWriter.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class SurveyWriterTest {
+
+    @Autowired
+    private SurveyWriter writer;
+
+    @Autowired
+    private SurveyRepository surveyRepository;
+
+    @Autowired
+    private SurveySetSnapshotRepository snapshotRepository;
+
+    @AfterEach
+    void tearDown() {
+        snapshotRepository.deleteAll();
+        surveyRepository.deleteAll();
+    }
+
+    @Test
+    void create_shouldStoreSurveyWithFirstSnapshot() {
+        Survey saved = writer.create(survey(), new byte[]{1, 2, 3});
+
+        assertEquals(1, snapshotRepository.findById(saved.getSurveyid()).orElseThrow().getVersion());
+        assertArrayEquals(new byte[]{1, 2, 3}, snapshotRepository.findById(saved.getSurveyid()).orElseThrow().getData());
+    }
+
+    @Test
+    void create_shouldNotKeepSurveyWhenSnapshotFails() {
+        // data is not nullable, so the snapshot insert fails at commit
+        assertThrows(RuntimeException.class, () -> writer.create(survey(), null));
+
+        assertEquals(0, surveyRepository.count());
+        assertEquals(0, snapshotRepository.count());
+    }
+
+    private static Survey survey() {
+        return new Survey(null, "John Doe", "Tech Corp", 1L, LocalDate.now(), LocalDate.now().plusDays(30), new ArrayList<>());
+    }
+}
@@ -0,0 +1,111 @@
+package com.ust.Survey_api.service;
+
+import com.ust.Survey_api.dto.AnswerCount;
+import com.ust.Survey_api.dto.QuestionResult;
+import com.ust.Survey_api.model.AnswerTally;
+import com.ust.Survey_api.model.AnswerTallyId;
+import com.ust.Survey_api.model.SurveyResponse;
+import com.ust.Survey_api.repository.AnswerTallyRepository;
+import com.ust.Survey_api.repository.SurveyResponseRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.doReturn;
+
+@DataJpaTest
+@ActiveProfiles("h2")
+@Import(AnswerTallyService.class)
+class AnswerTallyServiceTest {
+
+    @Autowired
+    private AnswerTallyService answerTallies;
+
+    @SpyBean
+    private AnswerTallyRepository tallyRepository;
+
+    @Autowired
+    private SurveyResponseRepository responseRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Test
+    void results_shouldCountEveryOptionIncludingUnchosenOnes() {
+        answerTallies.ensureOptions(1L, Map.of(10L, Set.of(100L, 101L), 11L, Set.of(110L)));
+        answerTallies.increment(List.of(response(10L, 101L), response(10L, 101L), response(11L, 110L)));
+        answerTallies.increment(List.of(response(10L, 100L)));
+        flushAndClear();
+
+        assertEquals(List.of(
+                new QuestionResult(10L, 3, List.of(new AnswerCount(100L, 1), new AnswerCount(101L, 2))),
+                new QuestionResult(11L, 1, List.of(new AnswerCount(110L, 1)))), answerTallies.results(1L));
+    }
+
+    @Test
+    void ensureOptions_shouldKeepExistingCounts() {
+        answerTallies.increment(List.of(response(10L, 100L)));
+        flushAndClear();
+
+        answerTallies.ensureOptions(1L, Map.of(10L, Set.of(100L, 101L)));
+        flushAndClear();
+
+        assertEquals(1, tallyRepository.findById(new AnswerTallyId(1L, 10L, 100L)).orElseThrow().getTotal());
+        assertEquals(0, tallyRepository.findById(new AnswerTallyId(1L, 10L, 101L)).orElseThrow().getTotal());
+    }
+
+    // Without the test transaction, so the conflicting batch really rolls back as it does for callers
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void ensureOptions_shouldInsertRemainingOptionsWhenAnotherWriterCreatedSome() {
+        // Another instance creates one option between this call's read and its insert
+        AnswerTally created = tallyRepository.save(new AnswerTally(new AnswerTallyId(1L, 10L, 100L), 3));
+        doReturn(List.of()).doReturn(List.of(created)).when(tallyRepository).findByIdSurveyid(1L);
+
+        try {
+            answerTallies.ensureOptions(1L, Map.of(10L, Set.of(100L, 101L), 11L, Set.of(110L)));
+
+            assertEquals(3, tallyRepository.findById(new AnswerTallyId(1L, 10L, 100L)).orElseThrow().getTotal());
+            assertEquals(0, tallyRepository.findById(new AnswerTallyId(1L, 10L, 101L)).orElseThrow().getTotal());
+            assertEquals(0, tallyRepository.findById(new AnswerTallyId(1L, 11L, 110L)).orElseThrow().getTotal());
+        } finally {
+            tallyRepository.deleteAll();
+        }
+    }
+
+    @Test
+    void rebuild_shouldRecountFromStoredResponses() {
+        answerTallies.ensureOptions(1L, Map.of(10L, Set.of(100L, 101L)));
+        answerTallies.increment(List.of(response(10L, 100L), response(10L, 100L), response(10L, 100L)));
+        responseRepository.saveAll(List.of(response(10L, 101L), response(10L, 101L), response(11L, 110L)));
+        flushAndClear();
+
+        assertEquals(3, answerTallies.rebuild(1L));
+        flushAndClear();
+
+        assertEquals(List.of(
+                new QuestionResult(10L, 2, List.of(new AnswerCount(100L, 0), new AnswerCount(101L, 2))),
+                new QuestionResult(11L, 1, List.of(new AnswerCount(110L, 1)))), answerTallies.results(1L));
+    }
+
+    private void flushAndClear() {
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    private static SurveyResponse response(Long questionId, Long answerId) {
+        return new SurveyResponse(null, 1L, 5L, questionId, answerId, LocalDateTime.now());
+    }
+}
@@ -0,0 +1,137 @@
+package com.ust.Survey_api.service;
+
+import com.ust.Survey_api.exception.SetDataUnavailableException;
+import com.ust.Survey_api.exception.SetNotFoundException;
+import com.ust.Survey_api.feign.AssessmentClient;
+import com.ust.Survey_api.feign.SetNameDto;
+import feign.Request;
+import feign.codec.DecodeException;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AssessmentGatewayTest {
+
+    @Mock
+    private AssessmentClient client;
+
+    @InjectMocks
+    private AssessmentGateway gateway;
+
+    private CircuitBreakerRegistry circuitBreakerRegistry;
+
+    private final List<SetNameDto> setNameDtoList = List.of(new SetNameDto(1L, "Question 1", new ArrayList<>()));
+
+    @BeforeEach
+    void setUp() {
+        circuitBreakerRegistry = CircuitBreakerRegistry.of(CircuitBreakerConfig.custom()
+                .slidingWindowSize(4)
+                .minimumNumberOfCalls(4)
+                .failureRateThreshold(50)
+                .waitDurationInOpenState(Duration.ofMinutes(1))
+                .ignoreExceptions(SetNotFoundException.class, BulkheadFullException.class)
+                .build());
+        ReflectionTestUtils.setField(gateway, "circuitBreakerRegistry", circuitBreakerRegistry);
+        ReflectionTestUtils.setField(gateway, "bulkheadRegistry", BulkheadRegistry.of(BulkheadConfig.custom()
+                .maxConcurrentCalls(1)
+                .maxWaitDuration(Duration.ZERO)
+                .build()));
+        ReflectionTestUtils.setField(gateway, "maximumSize", 100L);
+        gateway.init();
+    }
+
+    @Test
+    void getSet_shouldServeLastKnownSetWhenUpstreamFails() {
+        when(client.getSet(1L))
+                .thenReturn(ResponseEntity.ok(setNameDtoList))
+                .thenThrow(new IllegalStateException("upstream down"));
+
+        assertEquals(setNameDtoList, gateway.getSet(1L));
+        assertEquals(setNameDtoList, gateway.getSet(1L));
+    }
+
+    @Test
+    void getSet_shouldReportUnavailableWithoutLastKnownSet() {
+        when(client.getSet(1L)).thenThrow(new IllegalStateException("upstream down"));
+
+        assertThrows(SetDataUnavailableException.class, () -> gateway.getSet(1L));
+    }
+
+    @Test
+    void getSet_shouldReportUndecodableAnswerAsNotFoundWithoutTrippingBreaker() {
+        Request request = Request.create(Request.HttpMethod.GET, "/assessments/set-id/1", Map.of(), null, StandardCharsets.UTF_8, null);
+        when(client.getSet(1L)).thenThrow(new DecodeException(200, "set id is invalid", request));
+
+        for (int i = 0; i < 10; i++) {
+            assertThrows(SetNotFoundException.class, () -> gateway.getSet(1L));
+        }
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreakerRegistry.circuitBreaker(AssessmentGateway.NAME).getState());
+    }
+
+    @Test
+    void getSet_shouldStopCallingUpstreamOnceCircuitOpens() {
+        when(client.getSet(1L)).thenThrow(new IllegalStateException("upstream down"));
+
+        for (int i = 0; i < 6; i++) {
+            assertThrows(SetDataUnavailableException.class, () -> gateway.getSet(1L));
+        }
+
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreakerRegistry.circuitBreaker(AssessmentGateway.NAME).getState());
+        verify(client, times(4)).getSet(1L);
+    }
+
+    @Test
+    void getSet_shouldServeLastKnownSetWhenBulkheadIsFull() throws Exception {
+        CountDownLatch inFlight = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(client.getSet(1L)).thenReturn(ResponseEntity.ok(setNameDtoList));
+        when(client.getSet(2L)).thenAnswer(invocation -> {
+            inFlight.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return ResponseEntity.ok(setNameDtoList);
+        });
+        gateway.getSet(1L);
+
+        CompletableFuture<List<SetNameDto>> slowCall = CompletableFuture.supplyAsync(() -> gateway.getSet(2L));
+        assertTrue(inFlight.await(5, TimeUnit.SECONDS));
+
+        assertEquals(setNameDtoList, gateway.getSet(1L));
+        verify(client, times(1)).getSet(1L);
+        release.countDown();
+        assertEquals(setNameDtoList, slowCall.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void getSets_shouldFallBackToLastKnownSets() {
+        when(client.getSets(List.of(1L)))
+                .thenReturn(ResponseEntity.ok(Map.of(1L, setNameDtoList)));
+        when(client.getSets(List.of(1L, 2L))).thenThrow(new IllegalStateException("upstream down"));
+        gateway.getSets(List.of(1L));
+
+        assertEquals(Map.of(1L, setNameDtoList), gateway.getSets(List.of(1L, 2L)));
+    }
+}
@@ -0,0 +1,50 @@
+package com.ust.Survey_api.service;
+
+import com.ust.Survey_api.model.Email;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EmailBloomFilterTest {
+
+    @Test
+    void mightContain_shouldNeverMissAnAddedHash() {
+        EmailBloomFilter filter = new EmailBloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put(Email.hash("user" + i + "@example.com"));
+        }
+
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(filter.mightContain(Email.hash("user" + i + "@example.com")));
+        }
+    }
+
+    @Test
+    void mightContain_shouldKeepFalsePositivesNearConfiguredRate() {
+        EmailBloomFilter filter = new EmailBloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put(Email.hash("user" + i + "@example.com"));
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (filter.mightContain(Email.hash("other" + i + "@example.com"))) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < 2_000, "false positives: " + falsePositives);
+        // ~9.6 bits an address at 1%
+        assertTrue(filter.sizeInBytes() < 13_000);
+    }
+
+    @Test
+    void isFull_shouldReportWhenCapacityIsExceeded() {
+        EmailBloomFilter filter = new EmailBloomFilter(2, 0.01);
+        filter.put(1L);
+        filter.put(2L);
+        assertFalse(filter.isFull());
+
+        filter.put(3L);
+        assertTrue(filter.isFull());
+    }
+}
@@ -0,0 +1,140 @@
+package com.ust.Survey_api.service;
+
+import com.ust.Survey_api.dto.EmailDuplicate;
+import com.ust.Survey_api.model.Email;
+import com.ust.Survey_api.model.Status;
+import com.ust.Survey_api.repository.EmailRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class EmailDeduplicatorTest {
+
+    @Mock
+    private EmailRepository emailRepository;
+
+    @InjectMocks
+    private EmailDeduplicator deduplicator;
+
+    private final long existing = Email.hash("old@example.com");
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(deduplicator, "falsePositiveRate", 0.01);
+        ReflectionTestUtils.setField(deduplicator, "maxBytes", 1_000_000L);
+        deduplicator.init();
+    }
+
+    @Test
+    void isDuplicate_shouldAnswerNewAddressesWithoutQueryingRows() {
+        when(emailRepository.findEmailHashesBySurveyid(1L)).thenReturn(List.of(existing));
+
+        for (int i = 0; i < 100; i++) {
+            assertFalse(deduplicator.isDuplicate(1L, Email.hash("new" + i + "@example.com")));
+        }
+
+        verify(emailRepository, times(1)).findEmailHashesBySurveyid(1L);
+        verify(emailRepository, never()).findBySurveyid(anyLong());
+        // A false positive or two at 1% may be confirmed against the index, never all of them
+        verify(emailRepository, atMost(5)).existsBySurveyidAndEmailHash(eq(1L), anyLong());
+    }
+
+    @Test
+    void isDuplicate_shouldConfirmMaybeAgainstIndex() {
+        when(emailRepository.findEmailHashesBySurveyid(1L)).thenReturn(List.of(existing));
+        when(emailRepository.existsBySurveyidAndEmailHash(1L, existing)).thenReturn(true);
+
+        assertTrue(deduplicator.isDuplicate(1L, existing));
+    }
+
+    @Test
+    void added_shouldMakeNewHashesKnownToFilter() {
+        long added = Email.hash("added@example.com");
+        when(emailRepository.findEmailHashesBySurveyid(1L)).thenReturn(List.of());
+        assertFalse(deduplicator.isDuplicate(1L, added));
+
+        deduplicator.added(1L, List.of(added));
+        when(emailRepository.existsBySurveyidAndEmailHash(1L, added)).thenReturn(true);
+
+        assertTrue(deduplicator.isDuplicate(1L, added));
+    }
+
+    @Test
+    void added_shouldReachFilterThatWasLoadingWhenRowsCommitted() throws InterruptedException {
+        long added = Email.hash("added@example.com");
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        // The load reads the table before the new row is committed
+        when(emailRepository.findEmailHashesBySurveyid(1L)).thenAnswer(invocation -> {
+            loading.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return List.of();
+        });
+        Thread reader = new Thread(() -> deduplicator.isDuplicate(1L, Email.hash("other@example.com")));
+        reader.start();
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+
+        Thread writer = new Thread(() -> deduplicator.added(1L, List.of(added)));
+        writer.start();
+        // Either waiting for the load or done without it
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (writer.getState() != Thread.State.BLOCKED && writer.getState() != Thread.State.WAITING
+                && writer.getState() != Thread.State.TERMINATED && System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+        release.countDown();
+        reader.join(5000);
+        writer.join(5000);
+        when(emailRepository.existsBySurveyidAndEmailHash(1L, added)).thenReturn(true);
+
+        assertTrue(deduplicator.isDuplicate(1L, added));
+        verify(emailRepository, times(1)).findEmailHashesBySurveyid(1L);
+    }
+
+    @Test
+    void isDuplicate_shouldBackfillRowsWithoutHash() {
+        Email legacy = new Email(7L, "Old@Example.com", 1L, Status.PENDING);
+        when(emailRepository.findBySurveyidAndEmailHashIsNullAndEmailIsNotNull(1L)).thenReturn(List.of(legacy));
+        when(emailRepository.findEmailHashesBySurveyid(1L)).thenReturn(List.of(existing));
+
+        deduplicator.isDuplicate(1L, existing);
+
+        assertEquals(existing, legacy.getEmailHash());
+        verify(emailRepository).saveAll(List.of(legacy));
+    }
+
+    @Test
+    void removeDuplicates_shouldKeepOldestRowOfEachAddress() {
+        when(emailRepository.findDuplicateHashesBySurveyid(1L)).thenReturn(List.of(existing));
+        Email oldest = email(3L, "old@example.com");
+        Email second = email(5L, "OLD@example.com");
+        Email third = email(9L, "old@example.com ");
+        when(emailRepository.findBySurveyidAndEmailHashIn(1L, List.of(existing))).thenReturn(List.of(third, oldest, second));
+
+        List<EmailDuplicate> duplicates = deduplicator.findDuplicates(1L);
+        int removed = deduplicator.removeDuplicates(1L);
+
+        assertEquals(List.of(new EmailDuplicate("old@example.com", List.of(3L, 5L, 9L))), duplicates);
+        assertEquals(2, removed);
+        verify(emailRepository).deleteAllByIdInBatch(List.of(5L, 9L));
+    }
+
+    private static Email email(Long id, String address) {
+        Email email = new Email(id, address, 1L, Status.PENDING);
+        email.setEmailHash(Email.hash(address));
+        return email;
+    }
+}
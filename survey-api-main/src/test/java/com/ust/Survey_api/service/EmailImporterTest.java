@@ -0,0 +1,124 @@
+package com.ust.Survey_api.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ust.Survey_api.dto.EmailImportResult;
+import com.ust.Survey_api.model.Email;
+import com.ust.Survey_api.repository.EmailRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anySet;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class EmailImporterTest {
+
+    @Mock
+    private EmailRepository emailRepository;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private EmailDeduplicator deduplicator;
+
+    @InjectMocks
+    private EmailImporter importer;
+
+    // saveAll is handed the same list over and over, so copy what it saw
+    private final List<List<String>> inserted = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(importer, "validator", Validation.buildDefaultValidatorFactory().getValidator());
+        ReflectionTestUtils.setField(importer, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.setField(importer, "chunkSize", 2);
+        ReflectionTestUtils.setField(importer, "maxReportedRejects", 10);
+        lenient().when(emailRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<Email> chunk = invocation.getArgument(0);
+            inserted.add(chunk.stream().map(Email::getEmail).toList());
+            return chunk;
+        });
+    }
+
+    @Test
+    void importEmails_shouldInsertNdjsonRowsInChunks() {
+        String body = """
+                "a@example.com"
+                {"email": "b@example.com"}
+
+                "c@example.com"
+                {"email": "d@example.com", "name": "D"}
+                "e@example.com"
+                """;
+
+        EmailImportResult result = importer.importEmails(1L, new StringReader(body), EmailImporter.Format.NDJSON);
+
+        assertEquals(5, result.getImported());
+        assertEquals(0, result.getRejected());
+        assertEquals(List.of(List.of("a@example.com", "b@example.com"), List.of("c@example.com", "d@example.com"), List.of("e@example.com")), inserted);
+        verify(entityManager, times(3)).clear();
+        verify(deduplicator, times(3)).added(eq(1L), anySet());
+    }
+
+    @Test
+    void importEmails_shouldRejectInvalidAndDuplicateRows() {
+        lenient().when(deduplicator.isDuplicate(1L, Email.hash("old@example.com"))).thenReturn(true);
+        String body = """
+                "a@example.com"
+                not json
+                42
+                "not an email"
+                "A@Example.com"
+                "OLD@example.com"
+                """;
+
+        EmailImportResult result = importer.importEmails(1L, new StringReader(body), EmailImporter.Format.NDJSON);
+
+        assertEquals(1, result.getImported());
+        assertEquals(5, result.getRejected());
+        assertEquals(List.of(2L, 3L, 4L, 5L, 6L), result.getRejects().stream().map(EmailImportResult.Reject::getLine).toList());
+        assertEquals("Malformed JSON", result.getRejects().get(0).getReason());
+        assertEquals("Email should be valid", result.getRejects().get(2).getReason());
+        assertEquals("Duplicate email", result.getRejects().get(3).getReason());
+        assertEquals("Duplicate email", result.getRejects().get(4).getReason());
+    }
+
+    @Test
+    void importEmails_shouldReadFirstCsvColumnAndSkipHeader() {
+        String body = "email,name\r\na@example.com,A\r\n\"b@example.com\",\"B\"\r\nc@example.com\r\n";
+
+        EmailImportResult result = importer.importEmails(1L, new StringReader(body), EmailImporter.Format.CSV);
+
+        assertEquals(3, result.getImported());
+        assertEquals(List.of(List.of("a@example.com", "b@example.com"), List.of("c@example.com")), inserted);
+    }
+
+    @Test
+    void importEmails_shouldCountEveryRejectButReportOnlyTheFirstOnes() {
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < 25; i++) {
+            body.append("bad").append(i).append('\n');
+        }
+
+        EmailImportResult result = importer.importEmails(1L, new StringReader(body.toString()), EmailImporter.Format.CSV);
+
+        assertEquals(0, result.getImported());
+        assertEquals(25, result.getRejected());
+        assertEquals(10, result.getRejects().size());
+        verify(emailRepository, never()).saveAll(anyList());
+    }
+}
@@ -0,0 +1,253 @@
+package com.ust.Survey_api.service;
+
+import com.ust.Survey_api.dto.AnswerSelection;
+import com.ust.Survey_api.dto.ResponseSubmission;
+import com.ust.Survey_api.exception.InvalidResponseException;
+import com.ust.Survey_api.exception.ResponseQueueFullException;
+import com.ust.Survey_api.feign.Answer;
+import com.ust.Survey_api.feign.SetNameDto;
+import com.ust.Survey_api.model.Email;
+import com.ust.Survey_api.model.Status;
+import com.ust.Survey_api.model.Survey;
+import com.ust.Survey_api.repository.EmailRepository;
+import com.ust.Survey_api.repository.SurveyRepository;
+import com.ust.Survey_api.repository.SurveySetSnapshotRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class ResponseIngestorTest {
+
+    @Mock
+    private SurveyRepository repo;
+
+    @Mock
+    private EmailRepository emailRepository;
+
+    @Mock
+    private SurveySetSnapshotRepository snapshotRepository;
+
+    @Mock
+    private SetSnapshotCodec codec;
+
+    @Mock
+    private SetDataCache setDataCache;
+
+    @Mock
+    private ResponseWriter writer;
+
+    @Mock
+    private AnswerTallyService answerTallies;
+
+    @Mock
+    private EmailDeduplicator emailDeduplicator;
+
+    @InjectMocks
+    private ResponseIngestor ingestor;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    // Every submission handed to the writer
+    private final List<ResponseIngestor.Submission> written = new CopyOnWriteArrayList<>();
+
+    private final Survey survey = new Survey(1L, "John Doe", "Tech Corp", 7L, LocalDate.now(), LocalDate.now().plusDays(30), new ArrayList<>());
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(ingestor, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(ingestor, "queueCapacity", 100);
+        ReflectionTestUtils.setField(ingestor, "batchSize", 10);
+        ReflectionTestUtils.setField(ingestor, "writers", 1);
+        ReflectionTestUtils.setField(ingestor, "answersTtl", Duration.ofMinutes(1));
+        when(repo.findBySurveyid(1L)).thenReturn(survey);
+        when(snapshotRepository.findById(1L)).thenReturn(Optional.empty());
+        when(setDataCache.get(7L)).thenReturn(List.of(
+                new SetNameDto(10L, "Question 1", List.of(new Answer(100L, "Yes", ""), new Answer(101L, "No", ""))),
+                new SetNameDto(11L, "Question 2", List.of(new Answer(110L, "Yes", "")))));
+        when(writer.write(anyList())).thenAnswer(invocation -> {
+            List<ResponseIngestor.Submission> batch = invocation.getArgument(0);
+            written.addAll(batch);
+            return batch.size();
+        });
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        ingestor.stop();
+    }
+
+    @Test
+    void submit_shouldQueueValidResponseAndWriteItInBatch() throws InterruptedException {
+        ingestor.start();
+        for (long i = 0; i < 5; i++) {
+            recipient("user" + i + "@example.com", i, Status.PENDING);
+            ingestor.submit(1L, response("user" + i + "@example.com", new AnswerSelection(10L, 101L), new AnswerSelection(11L, 110L)));
+        }
+
+        ingestor.stop();
+
+        assertEquals(List.of(0L, 1L, 2L, 3L, 4L), written.stream().map(ResponseIngestor.Submission::emailId).sorted().toList());
+        assertEquals(5, meterRegistry.counter(ResponseIngestor.WRITTEN_COUNTER).count());
+        // The set is read once for all submissions
+        verify(setDataCache, times(1)).get(7L);
+        verify(answerTallies, times(1)).ensureOptions(1L, Map.of(10L, Set.of(100L, 101L), 11L, Set.of(110L)));
+    }
+
+    @Test
+    void submit_shouldRejectAnswersOutsideTheSurveysSet() {
+        ingestor.start();
+        recipient("a@example.com", 1L, Status.PENDING);
+
+        assertThrows(InvalidResponseException.class, () -> ingestor.submit(1L, response("a@example.com", new AnswerSelection(12L, 100L))));
+        assertThrows(InvalidResponseException.class, () -> ingestor.submit(1L, response("a@example.com", new AnswerSelection(10L, 110L))));
+        assertThrows(InvalidResponseException.class, () -> ingestor.submit(1L, response("a@example.com", new AnswerSelection(10L, null))));
+        assertThrows(InvalidResponseException.class, () -> ingestor.submit(1L,
+                response("a@example.com", new AnswerSelection(10L, 100L), new AnswerSelection(10L, 101L))));
+        assertThrows(InvalidResponseException.class, () -> ingestor.submit(1L, response("a@example.com")));
+    }
+
+    @Test
+    void submit_shouldAcceptRecipientStoredBeforeEmailHashExisted() throws InterruptedException {
+        EmailDeduplicator deduplicator = new EmailDeduplicator();
+        ReflectionTestUtils.setField(deduplicator, "emailRepository", emailRepository);
+        ReflectionTestUtils.setField(ingestor, "emailDeduplicator", deduplicator);
+        Email legacy = new Email(3L, "Legacy@Example.com", 1L, Status.PENDING);
+        when(emailRepository.findBySurveyidAndEmailHashIsNullAndEmailIsNotNull(1L)).thenReturn(List.of(legacy));
+        // Found by hash only once the hash is filled in
+        when(emailRepository.findFirstBySurveyidAndEmailHash(1L, Email.hash("legacy@example.com")))
+                .thenAnswer(invocation -> Optional.ofNullable(legacy.getEmailHash()).map(hash -> legacy));
+        ingestor.start();
+
+        ingestor.submit(1L, response("legacy@example.com", new AnswerSelection(10L, 100L)));
+        ingestor.stop();
+
+        assertEquals(List.of(3L), written.stream().map(ResponseIngestor.Submission::emailId).toList());
+        verify(emailRepository).saveAll(List.of(legacy));
+    }
+
+    @Test
+    void submit_shouldRejectStrangersAndRepeatRespondents() {
+        ingestor.start();
+        recipient("done@example.com", 2L, Status.RESPONDED);
+
+        assertThrows(InvalidResponseException.class, () -> ingestor.submit(1L, response("stranger@example.com", new AnswerSelection(10L, 100L))));
+        assertThrows(InvalidResponseException.class, () -> ingestor.submit(1L, response("done@example.com", new AnswerSelection(10L, 100L))));
+    }
+
+    @Test
+    void submit_shouldRejectExpiredSurvey() {
+        ingestor.start();
+        survey.setExpired(true);
+
+        assertThrows(InvalidResponseException.class, () -> ingestor.submit(1L, response("a@example.com", new AnswerSelection(10L, 100L))));
+    }
+
+    @Test
+    void submit_shouldRejectSurveyThatExpiresWhileItsAnswersAreCached() {
+        ingestor.start();
+        recipient("a@example.com", 1L, Status.PENDING);
+        ingestor.submit(1L, response("a@example.com", new AnswerSelection(10L, 100L)));
+
+        ingestor.clock = Clock.fixed(survey.getExpireTime().plusDays(1).atStartOfDay(ZoneId.systemDefault()).toInstant(), ZoneId.systemDefault());
+
+        assertThrows(InvalidResponseException.class, () -> ingestor.submit(1L, response("a@example.com", new AnswerSelection(10L, 100L))));
+        verify(repo, times(1)).findBySurveyid(1L);
+    }
+
+    @Test
+    void submit_shouldNotCacheAnswersLoadedBeforeAnInvalidation() {
+        // A snapshot refresh lands while the first submit is still loading the old set
+        when(setDataCache.get(7L)).thenAnswer(invocation -> {
+            ingestor.invalidate(1L);
+            return List.of(new SetNameDto(10L, "Question 1", List.of(new Answer(100L, "Yes", ""))));
+        }).thenReturn(List.of(new SetNameDto(10L, "Question 1", List.of(new Answer(102L, "Maybe", "")))));
+        ingestor.start();
+        recipient("a@example.com", 1L, Status.PENDING);
+        ingestor.submit(1L, response("a@example.com", new AnswerSelection(10L, 100L)));
+
+        ingestor.submit(1L, response("a@example.com", new AnswerSelection(10L, 102L)));
+
+        verify(setDataCache, times(2)).get(7L);
+        verify(answerTallies).ensureOptions(1L, Map.of(10L, Set.of(102L)));
+    }
+
+    @Test
+    void submit_shouldThrottleWhenQueueIsFull() throws InterruptedException {
+        ReflectionTestUtils.setField(ingestor, "queueCapacity", 1);
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(writer.write(anyList())).thenAnswer(invocation -> {
+            writing.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return 1;
+        });
+        ingestor.start();
+        recipient("a@example.com", 1L, Status.PENDING);
+
+        ingestor.submit(1L, response("a@example.com", new AnswerSelection(10L, 100L)));
+        assertTrue(writing.await(5, TimeUnit.SECONDS));
+        ingestor.submit(1L, response("a@example.com", new AnswerSelection(10L, 100L)));
+
+        assertThrows(ResponseQueueFullException.class, () -> ingestor.submit(1L, response("a@example.com", new AnswerSelection(10L, 100L))));
+        assertEquals(1, meterRegistry.counter(ResponseIngestor.THROTTLED_COUNTER).count());
+        release.countDown();
+    }
+
+    @Test
+    void write_shouldRetrySubmissionsOneByOneWhenBatchFails() throws InterruptedException {
+        when(writer.write(anyList())).thenAnswer(invocation -> {
+            List<ResponseIngestor.Submission> batch = invocation.getArgument(0);
+            if (batch.size() > 1 || batch.get(0).emailId() == 1L) {
+                throw new IllegalStateException("constraint violated");
+            }
+            written.addAll(batch);
+            return 1;
+        });
+        recipient("bad@example.com", 1L, Status.PENDING);
+        recipient("good@example.com", 2L, Status.PENDING);
+        ingestor.start();
+        // Both land in one batch only if they are queued before the writer wakes up, so queue them directly
+        ReflectionTestUtils.invokeMethod(ingestor, "write", List.of(
+                new ResponseIngestor.Submission(1L, 1L, List.of(new AnswerSelection(10L, 100L)), null),
+                new ResponseIngestor.Submission(1L, 2L, List.of(new AnswerSelection(10L, 100L)), null)));
+
+        assertEquals(List.of(2L), written.stream().map(ResponseIngestor.Submission::emailId).toList());
+        assertEquals(1, meterRegistry.counter(ResponseIngestor.FAILED_COUNTER).count());
+    }
+
+    private void recipient(String address, Long id, Status status) {
+        when(emailRepository.findFirstBySurveyidAndEmailHash(1L, Email.hash(address)))
+                .thenReturn(Optional.of(new Email(id, address, 1L, status)));
+    }
+
+    private static ResponseSubmission response(String email, AnswerSelection... answers) {
+        return new ResponseSubmission(email, List.of(answers));
+    }
+}
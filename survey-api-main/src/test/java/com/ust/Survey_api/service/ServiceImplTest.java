@@ -1,28 +1,39 @@
 package com.ust.Survey_api.service;
 
 
+import com.ust.Survey_api.dto.EmailDuplicate;
+import com.ust.Survey_api.dto.EmailImportResult;
+import com.ust.Survey_api.dto.QuestionResult;
+import com.ust.Survey_api.exception.SetDataUnavailableException;
 import com.ust.Survey_api.exception.SetNotFoundException;
-import com.ust.Survey_api.feign.AssessmentClient;
 import com.ust.Survey_api.feign.FullResponse;
 import com.ust.Survey_api.feign.SetNameDto;
 import com.ust.Survey_api.feign.SurveyRequestDto;
 import com.ust.Survey_api.model.Email;
 import com.ust.Survey_api.model.Status;
 import com.ust.Survey_api.model.Survey;
+import com.ust.Survey_api.model.SurveySetSnapshot;
 import com.ust.Survey_api.repository.EmailRepository;
 import com.ust.Survey_api.repository.SurveyRepository;
+import com.ust.Survey_api.repository.SurveyResponseRepository;
+import com.ust.Survey_api.repository.SurveySetSnapshotRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.http.ResponseEntity;
 
+import java.io.StringReader;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -31,15 +42,42 @@ import static org.mockito.Mockito.*;
 @ExtendWith(MockitoExtension.class)
 class ServiceImplTest {
 
-    @Mock
-    private AssessmentClient client;
-
     @Mock
     private SurveyRepository repo;
 
     @Mock
     private EmailRepository emailRepository;
 
+    @Mock
+    private SetDataCache setDataCache;
+
+    @Mock
+    private SurveySetSnapshotRepository snapshotRepository;
+
+    @Mock
+    private SurveyWriter surveyWriter;
+
+    @Mock
+    private AssessmentGateway gateway;
+
+    @Mock
+    private SetSnapshotCodec codec;
+
+    @Mock
+    private EmailImporter emailImporter;
+
+    @Mock
+    private EmailDeduplicator emailDeduplicator;
+
+    @Mock
+    private ResponseIngestor responseIngestor;
+
+    @Mock
+    private AnswerTallyService answerTallies;
+
+    @Mock
+    private SurveyResponseRepository responseRepository;
+
     @InjectMocks
     private ServiceImpl service;
 
@@ -59,8 +97,8 @@ class ServiceImplTest {
 
     @Test
     void testAddSurvey() {
-        when(repo.save(any(Survey.class))).thenReturn(survey);
-        when(client.getSet(anyLong())).thenReturn(ResponseEntity.of(Optional.of(setNameDtoList)));
+        when(surveyWriter.create(any(Survey.class), any())).thenReturn(survey);
+        when(setDataCache.get(anyLong())).thenReturn(setNameDtoList);
 
         FullResponse response = service.addSurvey(surveyRequestDto);
 
@@ -69,7 +107,7 @@ class ServiceImplTest {
         assertEquals(survey.getRequestor(), response.getRequestor());
         assertEquals(survey.getCompanyName(), response.getCompanyName());
         assertEquals(survey.getSetid(), response.getSetId());
-        verify(repo, times(1)).save(any(Survey.class));
+        verify(surveyWriter, times(1)).create(any(Survey.class), any());
     }
 
     @Test
@@ -77,21 +115,22 @@ class ServiceImplTest {
         List<Survey> surveys = new ArrayList<>();
         surveys.add(survey);
 
-        when(repo.findAll()).thenReturn(surveys);
-        when(client.getSet(anyLong())).thenReturn(ResponseEntity.of(Optional.of(setNameDtoList)));
+        when(repo.findActive(any(LocalDate.class))).thenReturn(surveys);
+        when(setDataCache.getAll(List.of(1L))).thenReturn(Map.of(1L, setNameDtoList));
 
         List<FullResponse> responseList = service.getSurveys();
 
         assertNotNull(responseList);
         assertFalse(responseList.isEmpty());
         assertEquals(survey.getSurveyid(), responseList.get(0).getSurveyid());
-        verify(repo, times(1)).findAll();
+        assertEquals(setNameDtoList, responseList.get(0).getSetdata());
+        verify(repo, times(1)).findActive(LocalDate.now());
     }
 
     @Test
     void testGetSurveyById() {
         when(repo.findBySurveyid(anyLong())).thenReturn(survey);
-        when(client.getSet(anyLong())).thenReturn(ResponseEntity.of(Optional.of(setNameDtoList)));
+        when(setDataCache.get(anyLong())).thenReturn(setNameDtoList);
 
         FullResponse response = service.getSurveyById(1L);
 
@@ -113,6 +152,7 @@ class ServiceImplTest {
         assertNotNull(response);
         verify(repo, times(1)).findBySurveyid(anyLong());
         verify(emailRepository, times(1)).saveAll(anyList());
+        verify(repo, never()).save(any(Survey.class));
     }
 
     @Test
@@ -132,10 +172,18 @@ class ServiceImplTest {
 
     @Test
     void testAddSurvey_SetNotFoundException() {
-        when(client.getSet(anyLong())).thenThrow(new SetNotFoundException("Set not found"));
+        when(setDataCache.get(anyLong())).thenThrow(new SetNotFoundException("Set not found"));
 
         assertThrows(SetNotFoundException.class, () -> service.addSurvey(surveyRequestDto));
-        verify(repo, never()).save(any(Survey.class));
+        verifyNoInteractions(surveyWriter);
+    }
+
+    @Test
+    void testAddSurvey_SetDataUnavailableException() {
+        when(setDataCache.get(anyLong())).thenThrow(new SetDataUnavailableException("Set 1 is unavailable"));
+
+        assertThrows(SetDataUnavailableException.class, () -> service.addSurvey(surveyRequestDto));
+        verifyNoInteractions(surveyWriter);
     }
 
     @Test
@@ -143,7 +191,7 @@ class ServiceImplTest {
         when(repo.findBySurveyid(anyLong())).thenReturn(null);
 
         assertThrows(SetNotFoundException.class, () -> service.getSurveyById(1L));
-        verify(client, never()).getSet(anyLong());
+        verify(setDataCache, never()).get(anyLong());
     }
 
     @Test
@@ -153,4 +201,195 @@ class ServiceImplTest {
         assertThrows(SetNotFoundException.class, () -> service.addEmails(1L, List.of("test@example.com")));
         verify(emailRepository, never()).saveAll(anyList());
     }
+
+    @Test
+    void testAddSurvey_shouldStoreSetSnapshot() {
+        byte[] data = {1, 2, 3};
+        when(surveyWriter.create(any(Survey.class), eq(data))).thenReturn(survey);
+        when(setDataCache.get(anyLong())).thenReturn(setNameDtoList);
+        when(codec.encode(setNameDtoList)).thenReturn(data);
+
+        service.addSurvey(surveyRequestDto);
+
+        ArgumentCaptor<Survey> created = ArgumentCaptor.forClass(Survey.class);
+        verify(surveyWriter).create(created.capture(), eq(data));
+        assertEquals(1L, created.getValue().getSetid());
+        verifyNoInteractions(snapshotRepository);
+    }
+
+    @Test
+    void testGetSurveyById_shouldServeSetDataFromSnapshot() {
+        byte[] data = {1, 2, 3};
+        when(repo.findBySurveyid(1L)).thenReturn(survey);
+        when(snapshotRepository.findById(1L)).thenReturn(Optional.of(new SurveySetSnapshot(1L, 1L, 1, LocalDateTime.now(), data)));
+        when(codec.decode(data)).thenReturn(setNameDtoList);
+
+        FullResponse response = service.getSurveyById(1L);
+
+        assertEquals(setNameDtoList, response.getSetdata());
+        verifyNoInteractions(setDataCache);
+    }
+
+    @Test
+    void testGetSurveys_shouldFetchOnlySurveysWithoutSnapshot() {
+        Survey older = new Survey(2L, "Jane Doe", "Tech Corp", 2L, LocalDate.now(), LocalDate.now().plusDays(30), new ArrayList<>());
+        List<SetNameDto> olderSet = List.of(new SetNameDto(2L, "Question 2", new ArrayList<>()));
+        byte[] data = {1, 2, 3};
+        when(repo.findActive(any(LocalDate.class))).thenReturn(List.of(survey, older));
+        when(snapshotRepository.findAllById(List.of(1L, 2L))).thenReturn(List.of(new SurveySetSnapshot(1L, 1L, 1, LocalDateTime.now(), data)));
+        when(codec.decode(data)).thenReturn(setNameDtoList);
+        when(setDataCache.getAll(List.of(2L))).thenReturn(Map.of(2L, olderSet));
+
+        List<FullResponse> responseList = service.getSurveys();
+
+        assertEquals(setNameDtoList, responseList.get(0).getSetdata());
+        assertEquals(olderSet, responseList.get(1).getSetdata());
+    }
+
+    @Test
+    void testRefreshSnapshot_shouldRecaptureSetDataAndBumpVersion() {
+        byte[] data = {4, 5, 6};
+        SurveySetSnapshot snapshot = new SurveySetSnapshot(1L, 1L, 1, LocalDateTime.now(), new byte[]{1, 2, 3});
+        when(repo.findBySurveyid(1L)).thenReturn(survey);
+        when(snapshotRepository.findById(1L)).thenReturn(Optional.of(snapshot));
+        when(gateway.getSet(1L)).thenReturn(setNameDtoList);
+        when(codec.encode(setNameDtoList)).thenReturn(data);
+
+        FullResponse response = service.refreshSnapshot(1L);
+
+        assertEquals(setNameDtoList, response.getSetdata());
+        assertEquals(2, snapshot.getVersion());
+        assertArrayEquals(data, snapshot.getData());
+        verify(snapshotRepository).save(snapshot);
+        verifyNoInteractions(setDataCache);
+        verify(responseIngestor).invalidate(1L);
+    }
+
+    @Test
+    void testRefreshSnapshot_SetNotFoundException() {
+        when(repo.findBySurveyid(anyLong())).thenReturn(null);
+
+        assertThrows(SetNotFoundException.class, () -> service.refreshSnapshot(1L));
+        verify(snapshotRepository, never()).save(any(SurveySetSnapshot.class));
+    }
+
+    @Test
+    void testRefreshSnapshots_shouldUpdateEverySnapshotOfTheSet() {
+        byte[] data = {4, 5, 6};
+        when(gateway.getSet(1L)).thenReturn(setNameDtoList);
+        when(codec.encode(setNameDtoList)).thenReturn(data);
+        when(snapshotRepository.refreshBySetid(eq(1L), eq(data), any(LocalDateTime.class))).thenReturn(3);
+
+        assertEquals(3, service.refreshSnapshots(1L));
+        InOrder order = inOrder(gateway, snapshotRepository, responseIngestor);
+        order.verify(gateway).getSet(1L);
+        order.verify(snapshotRepository).refreshBySetid(eq(1L), eq(data), any(LocalDateTime.class));
+        order.verify(responseIngestor).invalidateAll();
+    }
+
+    @Test
+    void testImportEmails() {
+        StringReader body = new StringReader("a@example.com");
+        EmailImportResult result = new EmailImportResult(1, 0, new ArrayList<>());
+        when(repo.findBySurveyid(1L)).thenReturn(survey);
+        when(emailImporter.importEmails(1L, body, EmailImporter.Format.CSV)).thenReturn(result);
+
+        assertEquals(result, service.importEmails(1L, body, EmailImporter.Format.CSV));
+    }
+
+    @Test
+    void testImportEmails_SetNotFoundException() {
+        when(repo.findBySurveyid(anyLong())).thenReturn(null);
+
+        assertThrows(SetNotFoundException.class, () -> service.importEmails(1L, new StringReader(""), EmailImporter.Format.CSV));
+        verifyNoInteractions(emailImporter);
+    }
+
+    @Test
+    void testAddEmails_shouldSkipAddressesAlreadyInSurveyOrRepeated() {
+        when(repo.findBySurveyid(1L)).thenReturn(survey);
+        lenient().when(emailDeduplicator.isDuplicate(1L, Email.hash("old@example.com"))).thenReturn(true);
+        when(emailRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        List<Email> saved = service.addEmails(1L, List.of("new@example.com", "old@example.com", "NEW@example.com"));
+
+        assertEquals(List.of("new@example.com"), saved.stream().map(Email::getEmail).toList());
+        verify(emailDeduplicator).added(eq(1L), eq(Set.of(Email.hash("new@example.com"))));
+    }
+
+    @Test
+    void testFindDuplicateEmails() {
+        List<EmailDuplicate> duplicates = List.of(new EmailDuplicate("a@example.com", List.of(1L, 2L)));
+        when(repo.findBySurveyid(1L)).thenReturn(survey);
+        when(emailDeduplicator.findDuplicates(1L)).thenReturn(duplicates);
+
+        assertEquals(duplicates, service.findDuplicateEmails(1L));
+    }
+
+    @Test
+    void testRemoveDuplicateEmails_SetNotFoundException() {
+        when(repo.findBySurveyid(anyLong())).thenReturn(null);
+
+        assertThrows(SetNotFoundException.class, () -> service.removeDuplicateEmails(1L));
+        verifyNoInteractions(emailDeduplicator);
+    }
+
+    @Test
+    void testUpdateEmailStatus_shouldEscapeDomainIntoSuffixPattern() {
+        when(repo.findBySurveyid(1L)).thenReturn(survey);
+        when(emailRepository.updateStatusBySurveyid(1L, Status.APPROVED, Status.PENDING, "%@ex!_mple.com")).thenReturn(7);
+
+        assertEquals(7, service.updateEmailStatus(1L, Status.APPROVED, Status.PENDING, " Ex_mple.com"));
+        verify(emailRepository, never()).findBySurveyid(anyLong());
+    }
+
+    @Test
+    void testUpdateEmailStatus_shouldUpdateListedAddressesInBatches() {
+        List<String> emails = new ArrayList<>();
+        for (int i = 0; i < 2500; i++) {
+            emails.add("user" + i + "@example.com");
+        }
+        emails.add("USER0@example.com");
+        when(repo.findBySurveyid(1L)).thenReturn(survey);
+        when(emailRepository.updateStatusBySurveyidAndEmailHashIn(eq(1L), eq(Status.APPROVED), anyList()))
+                .thenAnswer(invocation -> ((List<?>) invocation.getArgument(2)).size());
+
+        assertEquals(2500, service.updateEmailStatus(1L, Status.APPROVED, emails));
+        verify(emailDeduplicator).backfill(1L);
+        verify(emailRepository, times(3)).updateStatusBySurveyidAndEmailHashIn(eq(1L), eq(Status.APPROVED), anyList());
+    }
+
+    @Test
+    void testUpdateEmailStatus_SetNotFoundException() {
+        when(repo.findBySurveyid(anyLong())).thenReturn(null);
+
+        assertThrows(SetNotFoundException.class, () -> service.updateEmailStatus(1L, Status.APPROVED, null, null));
+        verifyNoInteractions(emailRepository);
+    }
+
+    @Test
+    void testGetResults() {
+        List<QuestionResult> results = List.of(new QuestionResult(10L, 0, List.of()));
+        when(repo.findBySurveyid(1L)).thenReturn(survey);
+        when(answerTallies.results(1L)).thenReturn(results);
+
+        assertEquals(results, service.getResults(1L));
+    }
+
+    @Test
+    void testGetResults_SetNotFoundException() {
+        when(repo.findBySurveyid(anyLong())).thenReturn(null);
+
+        assertThrows(SetNotFoundException.class, () -> service.getResults(1L));
+        verifyNoInteractions(answerTallies);
+    }
+
+    @Test
+    void testRebuildAllResults_shouldRebuildEverySurveyWithResponses() {
+        when(responseRepository.findSurveyids()).thenReturn(List.of(1L, 2L));
+
+        assertEquals(2, service.rebuildAllResults());
+        verify(answerTallies).rebuild(1L);
+        verify(answerTallies).rebuild(2L);
+    }
 }
@@ -0,0 +1,269 @@
+package com.ust.Survey_api.service;
+
+import com.ust.Survey_api.exception.SetDataUnavailableException;
+import com.ust.Survey_api.feign.SetNameDto;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SetDataCacheTest {
+
+    @Mock
+    private AssessmentGateway gateway;
+
+    @Mock
+    private SetDataFetcher setDataFetcher;
+
+    @InjectMocks
+    private SetDataCache setDataCache;
+
+    private ExecutorService executor;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private final AtomicLong nanos = new AtomicLong();
+
+    private final List<SetNameDto> oldSet = List.of(new SetNameDto(1L, "Question 1", new ArrayList<>()));
+    private final List<SetNameDto> newSet = List.of(new SetNameDto(1L, "Question 1 (edited)", new ArrayList<>()));
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newFixedThreadPool(2);
+        meterRegistry = new SimpleMeterRegistry();
+        ReflectionTestUtils.setField(setDataCache, "executor", executor);
+        ReflectionTestUtils.setField(setDataCache, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(setDataCache, "maximumSize", 100L);
+        ReflectionTestUtils.setField(setDataCache, "refreshAfter", Duration.ofMinutes(1));
+        ReflectionTestUtils.setField(setDataCache, "ttl", Duration.ofMinutes(30));
+        ReflectionTestUtils.setField(setDataCache, "waitTimeout", Duration.ofSeconds(5));
+        ReflectionTestUtils.setField(setDataCache, "callTimeout", Duration.ofSeconds(2));
+        setDataCache.ticker = nanos::get;
+        setDataCache.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void get_shouldServeRepeatedReadsFromCache() {
+        when(gateway.getSet(1L)).thenReturn(oldSet);
+
+        assertEquals(oldSet, setDataCache.get(1L));
+        assertEquals(oldSet, setDataCache.get(1L));
+
+        verify(gateway, times(1)).getSet(1L);
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", SetDataCache.NAME).tag("result", "hit").functionCounter().count());
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", SetDataCache.NAME).tag("result", "miss").functionCounter().count());
+    }
+
+    @Test
+    void get_shouldReturnStaleSetWhileRefreshing() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        when(gateway.getSet(1L))
+                .thenReturn(oldSet)
+                .thenAnswer(invocation -> {
+                    release.await(5, TimeUnit.SECONDS);
+                    return newSet;
+                });
+        setDataCache.get(1L);
+        nanos.addAndGet(Duration.ofMinutes(2).toNanos());
+
+        // The refresh is blocked upstream, yet the reader isn't
+        assertEquals(oldSet, setDataCache.get(1L));
+        release.countDown();
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!newSet.equals(setDataCache.get(1L)) && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(newSet, setDataCache.get(1L));
+        assertEquals(1, meterRegistry.get(SetDataCache.REFRESH_TIMER).timer().count());
+    }
+
+    @Test
+    void get_shouldReloadAfterTtl() {
+        when(gateway.getSet(1L))
+                .thenReturn(oldSet)
+                .thenReturn(newSet);
+        setDataCache.get(1L);
+        nanos.addAndGet(Duration.ofMinutes(31).toNanos());
+
+        assertEquals(newSet, setDataCache.get(1L));
+    }
+
+    @Test
+    void get_shouldRethrowUpstreamError() {
+        when(gateway.getSet(1L)).thenThrow(new IllegalStateException("upstream down"));
+
+        assertThrows(IllegalStateException.class, () -> setDataCache.get(1L));
+    }
+
+    @Test
+    void get_shouldShareOneInFlightFetchBetweenConcurrentReaders() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        when(gateway.getSet(1L)).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return oldSet;
+        });
+
+        List<Future<List<SetNameDto>>> readers = startReaders(20);
+        release.countDown();
+
+        for (Future<List<SetNameDto>> reader : readers) {
+            assertEquals(oldSet, reader.get(5, TimeUnit.SECONDS));
+        }
+        verify(gateway, times(1)).getSet(1L);
+    }
+
+    @Test
+    void get_shouldShareInFlightErrorAndRetryAfterIt() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        when(gateway.getSet(1L))
+                .thenAnswer(invocation -> {
+                    release.await(5, TimeUnit.SECONDS);
+                    throw new IllegalStateException("upstream down");
+                })
+                .thenReturn(oldSet);
+
+        List<Future<List<SetNameDto>>> readers = startReaders(20);
+        release.countDown();
+
+        for (Future<List<SetNameDto>> reader : readers) {
+            ExecutionException e = assertThrows(ExecutionException.class, () -> reader.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(IllegalStateException.class, e.getCause());
+        }
+        verify(gateway, times(1)).getSet(1L);
+        // A failed fetch isn't cached
+        assertEquals(oldSet, setDataCache.get(1L));
+    }
+
+    @Test
+    void get_shouldServeLastKnownSetWhenCallMissesDeadline() {
+        ReflectionTestUtils.setField(setDataCache, "callTimeout", Duration.ofMillis(100));
+        CountDownLatch release = new CountDownLatch(1);
+        when(gateway.getSet(1L)).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return newSet;
+        });
+        when(gateway.lastKnown(eq(1L), any(TimeoutException.class))).thenReturn(oldSet);
+
+        assertEquals(oldSet, setDataCache.get(1L));
+        release.countDown();
+    }
+
+    @Test
+    void get_shouldStopWaitingAfterWaitTimeout() {
+        ReflectionTestUtils.setField(setDataCache, "waitTimeout", Duration.ofMillis(100));
+        CountDownLatch release = new CountDownLatch(1);
+        when(gateway.getSet(1L)).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return oldSet;
+        });
+
+        assertThrows(SetDataUnavailableException.class, () -> setDataCache.get(1L));
+        release.countDown();
+    }
+
+    @Test
+    void getAll_shouldReturnLoadedSetsWhenAnotherIsStillInFlight() {
+        ReflectionTestUtils.setField(setDataCache, "waitTimeout", Duration.ofMillis(100));
+        CountDownLatch release = new CountDownLatch(1);
+        when(gateway.getSet(1L)).thenReturn(oldSet);
+        when(gateway.getSet(2L)).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return newSet;
+        });
+        setDataCache.get(1L);
+        assertThrows(SetDataUnavailableException.class, () -> setDataCache.get(2L));
+
+        Map<Long, List<SetNameDto>> result = setDataCache.getAll(List.of(1L, 2L));
+        release.countDown();
+
+        assertEquals(Map.of(1L, oldSet), result);
+        verifyNoInteractions(setDataFetcher);
+    }
+
+    @Test
+    void getAll_shouldFetchOnlyMissingSets() {
+        when(gateway.getSet(1L)).thenReturn(oldSet);
+        when(setDataFetcher.fetchAsync(List.of(2L))).thenReturn(CompletableFuture.completedFuture(Map.of(2L, newSet)));
+        setDataCache.get(1L);
+
+        Map<Long, List<SetNameDto>> result = setDataCache.getAll(List.of(1L, 2L, 1L));
+
+        assertEquals(Map.of(1L, oldSet, 2L, newSet), result);
+    }
+
+    @Test
+    void getAll_shouldStopWaitingForSlowBulkFetchAfterWaitTimeout() {
+        ReflectionTestUtils.setField(setDataCache, "waitTimeout", Duration.ofMillis(100));
+        CompletableFuture<Map<Long, List<SetNameDto>>> fetch = new CompletableFuture<>();
+        when(gateway.getSet(1L)).thenReturn(oldSet);
+        when(setDataFetcher.fetchAsync(List.of(2L))).thenReturn(fetch);
+        setDataCache.get(1L);
+
+        long started = System.nanoTime();
+        Map<Long, List<SetNameDto>> result = setDataCache.getAll(List.of(1L, 2L));
+
+        assertEquals(Map.of(1L, oldSet), result);
+        assertTrue(System.nanoTime() - started < TimeUnit.SECONDS.toNanos(2));
+        // The fetch still fills the cache when it completes
+        fetch.complete(Map.of(2L, newSet));
+        assertEquals(newSet, setDataCache.get(2L));
+        verify(gateway, never()).getSet(2L);
+    }
+
+    private double reads() {
+        return meterRegistry.get("cache.gets").tag("cache", SetDataCache.NAME).functionCounters().stream()
+                .mapToDouble(counter -> counter.count())
+                .sum();
+    }
+
+    private List<Future<List<SetNameDto>>> startReaders(int count) throws InterruptedException {
+        ExecutorService readers = Executors.newFixedThreadPool(count);
+        CountDownLatch started = new CountDownLatch(count);
+        List<Future<List<SetNameDto>>> futures = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            futures.add(readers.submit(() -> {
+                started.countDown();
+                return setDataCache.get(1L);
+            }));
+        }
+        started.await(5, TimeUnit.SECONDS);
+        readers.shutdown();
+        // Wait until every reader has asked the cache, so none of them starts its own fetch later
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (reads() < count && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        return futures;
+    }
+}
@@ -0,0 +1,118 @@
+package com.ust.Survey_api.service;
+
+import com.ust.Survey_api.feign.SetNameDto;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SetDataFetcherTest {
+
+    @Mock
+    private AssessmentGateway gateway;
+
+    @InjectMocks
+    private SetDataFetcher setDataFetcher;
+
+    private ExecutorService executor;
+
+    private final List<SetNameDto> setNameDtoList = List.of(new SetNameDto(1L, "Question 1", new ArrayList<>()));
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newFixedThreadPool(2);
+        ReflectionTestUtils.setField(setDataFetcher, "executor", executor);
+        ReflectionTestUtils.setField(setDataFetcher, "batchSize", 2);
+        ReflectionTestUtils.setField(setDataFetcher, "timeout", Duration.ofSeconds(5));
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void fetch_shouldBatchDistinctSetids() {
+        when(gateway.getSets(anyCollection())).thenAnswer(invocation -> {
+            List<Long> batch = invocation.getArgument(0);
+            return Map.of(batch.get(0), setNameDtoList);
+        });
+
+        Map<Long, List<SetNameDto>> result = setDataFetcher.fetch(Arrays.asList(1L, 2L, 1L, null, 3L));
+
+        assertEquals(Map.of(1L, setNameDtoList, 3L, setNameDtoList), result);
+        verify(gateway).getSets(List.of(1L, 2L));
+        verify(gateway).getSets(List.of(3L));
+        verifyNoMoreInteractions(gateway);
+    }
+
+    @Test
+    void fetch_shouldRunBatchesConcurrently() {
+        CountDownLatch bothStarted = new CountDownLatch(2);
+        when(gateway.getSets(anyCollection())).thenAnswer(invocation -> {
+            bothStarted.countDown();
+            // Only returns data if the other batch is running at the same time
+            boolean concurrent = bothStarted.await(2, TimeUnit.SECONDS);
+            List<Long> batch = invocation.getArgument(0);
+            return concurrent ? Map.of(batch.get(0), setNameDtoList) : Map.of();
+        });
+
+        Map<Long, List<SetNameDto>> result = setDataFetcher.fetch(List.of(1L, 2L, 3L, 4L));
+
+        assertEquals(Map.of(1L, setNameDtoList, 3L, setNameDtoList), result);
+    }
+
+    @Test
+    void fetch_shouldFallBackToLastKnownSetsForFailedBatch() {
+        when(gateway.getSets(List.of(1L, 2L))).thenThrow(new RuntimeException("upstream down"));
+        when(gateway.getSets(List.of(3L))).thenReturn(Map.of(3L, setNameDtoList));
+        when(gateway.lastKnown(List.of(1L, 2L))).thenReturn(Map.of(2L, setNameDtoList));
+
+        Map<Long, List<SetNameDto>> result = setDataFetcher.fetch(List.of(1L, 2L, 3L));
+
+        assertEquals(Map.of(2L, setNameDtoList, 3L, setNameDtoList), result);
+    }
+
+    @Test
+    void fetch_shouldFallBackToLastKnownSetsForBatchThatTimesOut() {
+        ReflectionTestUtils.setField(setDataFetcher, "timeout", Duration.ofMillis(100));
+        CountDownLatch release = new CountDownLatch(1);
+        when(gateway.getSets(List.of(1L, 2L))).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return Map.of(1L, setNameDtoList);
+        });
+        when(gateway.getSets(List.of(3L))).thenReturn(Map.of(3L, setNameDtoList));
+        when(gateway.lastKnown(List.of(1L, 2L))).thenReturn(Map.of(2L, setNameDtoList));
+
+        Map<Long, List<SetNameDto>> result = setDataFetcher.fetch(List.of(1L, 2L, 3L));
+        release.countDown();
+
+        assertEquals(Map.of(2L, setNameDtoList, 3L, setNameDtoList), result);
+    }
+
+    @Test
+    void fetch_shouldNotCallUpstreamWithoutSetids() {
+        assertTrue(setDataFetcher.fetch(List.of()).isEmpty());
+        verify(gateway, never()).getSets(any());
+    }
+}
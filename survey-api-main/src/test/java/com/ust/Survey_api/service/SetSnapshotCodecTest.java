@@ -0,0 +1,49 @@
+package com.ust.Survey_api.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ust.Survey_api.feign.Answer;
+import com.ust.Survey_api.feign.SetNameDto;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SetSnapshotCodecTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final SetSnapshotCodec codec = new SetSnapshotCodec();
+
+    {
+        ReflectionTestUtils.setField(codec, "objectMapper", objectMapper);
+    }
+
+    @Test
+    void decode_shouldReturnWhatWasEncoded() {
+        List<SetNameDto> set = questionSet(3);
+
+        assertEquals(set, codec.decode(codec.encode(set)));
+    }
+
+    @Test
+    void encode_shouldBeSmallerThanPlainJson() throws Exception {
+        List<SetNameDto> set = questionSet(50);
+
+        assertTrue(codec.encode(set).length * 3 < objectMapper.writeValueAsBytes(set).length);
+    }
+
+    private static List<SetNameDto> questionSet(int questions) {
+        List<SetNameDto> set = new ArrayList<>();
+        for (long q = 0; q < questions; q++) {
+            List<Answer> answers = new ArrayList<>();
+            for (long a = 0; a < 4; a++) {
+                answers.add(new Answer(q * 4 + a, "answer " + a + " to question " + q, "suggestion for answer " + a));
+            }
+            set.add(new SetNameDto(q, "How would you rate question number " + q + "?", answers));
+        }
+        return set;
+    }
+}
@@ -0,0 +1,81 @@
+package com.ust.Survey_api.service;
+
+import com.ust.Survey_api.repository.SurveyRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SurveyExpirySweeperTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2024, 6, 1);
+
+    @Mock
+    private SurveyRepository repo;
+
+    @Mock
+    private ResponseIngestor responseIngestor;
+
+    @InjectMocks
+    private SurveyExpirySweeper sweeper;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(sweeper, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(sweeper, "chunkSize", 2);
+        ReflectionTestUtils.setField(sweeper, "maxChunksPerRun", 10);
+        sweeper.clock = Clock.fixed(TODAY.atStartOfDay().toInstant(ZoneOffset.UTC), ZoneOffset.UTC);
+        sweeper.init();
+    }
+
+    @Test
+    void sweep_shouldMarkDueSurveysChunkByChunk() {
+        when(repo.findDueIds(TODAY, PageRequest.of(0, 2)))
+                .thenReturn(List.of(1L, 2L))
+                .thenReturn(List.of(3L));
+        when(repo.markExpired(List.of(1L, 2L))).thenReturn(2);
+        when(repo.markExpired(List.of(3L))).thenReturn(1);
+
+        assertEquals(3, sweeper.sweep());
+        verify(repo, times(2)).findDueIds(TODAY, PageRequest.of(0, 2));
+        assertEquals(3, meterRegistry.counter(SurveyExpirySweeper.EXPIRED_COUNTER).count());
+        verify(responseIngestor).invalidate(1L);
+        verify(responseIngestor).invalidate(2L);
+        verify(responseIngestor).invalidate(3L);
+    }
+
+    @Test
+    void sweep_shouldStopAfterMaxChunksPerRun() {
+        ReflectionTestUtils.setField(sweeper, "maxChunksPerRun", 3);
+        when(repo.findDueIds(TODAY, PageRequest.of(0, 2))).thenReturn(List.of(1L, 2L));
+        when(repo.markExpired(List.of(1L, 2L))).thenReturn(2);
+
+        assertEquals(6, sweeper.sweep());
+        verify(repo, times(3)).markExpired(List.of(1L, 2L));
+    }
+
+    @Test
+    void sweep_shouldDoNothingWithoutDueSurveys() {
+        when(repo.findDueIds(TODAY, PageRequest.of(0, 2))).thenReturn(List.of());
+
+        assertEquals(0, sweeper.sweep());
+        verify(repo, never()).markExpired(any());
+    }
+}
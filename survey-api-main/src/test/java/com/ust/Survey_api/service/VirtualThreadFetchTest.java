@@ -0,0 +1,215 @@
+package com.ust.Survey_api.service;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import com.ust.Survey_api.config.LoadBalancerConfig;
+import com.ust.Survey_api.config.SetFetchConfig;
+import com.ust.Survey_api.feign.AssessmentClient;
+import com.ust.Survey_api.feign.SetNameDto;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cloud.openfeign.EnableFeignClients;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Set fetches with spring.threads.virtual.enabled=true, through the real Feign client and load balancer to a stub
+// AssessmentService. JFR records every time a virtual thread blocks while pinned to its carrier
+@SpringBootTest(classes = VirtualThreadFetchTest.TestApp.class, webEnvironment = SpringBootTest.WebEnvironment.NONE,
+        properties = "spring.threads.virtual.enabled=true")
+class VirtualThreadFetchTest {
+
+    private static final String PINNED = "jdk.VirtualThreadPinned";
+
+    private static final Stub stub = new Stub(20);
+
+    @Autowired
+    private SetDataFetcher setDataFetcher;
+
+    @Autowired
+    @Qualifier(SetFetchConfig.SET_FETCH_EXECUTOR)
+    private Executor executor;
+
+    @Value("${survey.set-fetch.concurrency}")
+    private int concurrency;
+
+    @DynamicPropertySource
+    static void instances(DynamicPropertyRegistry registry) {
+        registry.add("spring.cloud.discovery.client.simple.instances.Assessment[0].uri", stub::uri);
+    }
+
+    @AfterAll
+    static void stopStub() {
+        stub.stop();
+    }
+
+    @Test
+    void setFetchExecutor_shouldRunCallsOnVirtualThreads() {
+        CompletableFuture<Boolean> virtual = CompletableFuture.supplyAsync(() -> Thread.currentThread().isVirtual(), executor);
+
+        assertTrue(virtual.join());
+    }
+
+    @Test
+    void fetch_shouldNotPinVirtualThreadsAndStayWithinConcurrency() {
+        List<Long> setids = LongStream.rangeClosed(1, 120).boxed().toList();
+
+        PinnedEvents pinned = recordPinning(() -> {
+            List<CompletableFuture<Map<Long, List<SetNameDto>>>> requests = new ArrayList<>();
+            try (ExecutorService callers = Executors.newVirtualThreadPerTaskExecutor()) {
+                for (int i = 0; i < 50; i++) {
+                    requests.add(CompletableFuture.supplyAsync(() -> setDataFetcher.fetch(setids), callers));
+                }
+                for (CompletableFuture<Map<Long, List<SetNameDto>>> request : requests) {
+                    assertEquals(120, request.orTimeout(30, TimeUnit.SECONDS).join().size());
+                }
+            }
+        });
+
+        assertTrue(pinned.isEmpty(), pinned::report);
+        assertTrue(stub.maxInFlight.get() <= concurrency, "in flight: " + stub.maxInFlight);
+    }
+
+    // Guards the check above: blocking inside synchronized has to show up, with the frame that held the monitor
+    @Test
+    void recordPinning_shouldReportBlockingInsideSynchronized() {
+        Object monitor = new Object();
+
+        PinnedEvents pinned = recordPinning(() -> {
+            try (ExecutorService callers = Executors.newVirtualThreadPerTaskExecutor()) {
+                callers.submit(() -> {
+                    synchronized (monitor) {
+                        TimeUnit.MILLISECONDS.sleep(20);
+                    }
+                    return null;
+                });
+            }
+        });
+
+        assertFalse(pinned.isEmpty());
+        assertTrue(pinned.report().contains("recordPinning_shouldReportBlockingInsideSynchronized"), pinned::report);
+    }
+
+    private static PinnedEvents recordPinning(Runnable workload) {
+        PinnedEvents pinned = new PinnedEvents();
+        try (RecordingStream recording = new RecordingStream()) {
+            recording.enable(PINNED).withThreshold(Duration.ZERO).withStackTrace();
+            recording.onEvent(PINNED, pinned::add);
+            recording.startAsync();
+            workload.run();
+            recording.stop();
+        }
+        return pinned;
+    }
+
+    // Not a @SpringBootConfiguration, so the @DataJpaTest classes in this package still find the application's
+    @Configuration
+    @EnableAutoConfiguration(exclude = {DataSourceAutoConfiguration.class, HibernateJpaAutoConfiguration.class})
+    @EnableFeignClients(clients = AssessmentClient.class)
+    @Import({LoadBalancerConfig.class, SetFetchConfig.class, AssessmentGateway.class, SetDataFetcher.class})
+    static class TestApp {
+    }
+
+    // Pinned events with the frames that held the carrier, printed when the test fails
+    private static class PinnedEvents extends ConcurrentLinkedQueue<RecordedEvent> {
+
+        String report() {
+            return size() + " pinned virtual thread(s):\n" + stream()
+                    .map(event -> event.getDuration().toMillis() + "ms\n" + event.getStackTrace().getFrames().stream()
+                            .limit(20)
+                            .map(RecordedFrame::getMethod)
+                            .map(method -> "    at " + method.getType().getName() + "." + method.getName())
+                            .collect(Collectors.joining("\n")))
+                    .collect(Collectors.joining("\n"));
+        }
+    }
+
+    private static class Stub {
+
+        private final HttpServer server;
+
+        private final long delayMillis;
+
+        private final AtomicInteger inFlight = new AtomicInteger();
+
+        private final AtomicInteger maxInFlight = new AtomicInteger();
+
+        Stub(long delayMillis) {
+            this.delayMillis = delayMillis;
+            try {
+                server = HttpServer.create(new InetSocketAddress("localhost", 0), 64);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+            server.createContext("/actuator/health", exchange -> respond(exchange, "{\"status\":\"UP\"}"));
+            server.createContext("/assessments", this::serveSets);
+            server.setExecutor(Executors.newCachedThreadPool());
+            server.start();
+        }
+
+        String uri() {
+            return "http://localhost:" + server.getAddress().getPort();
+        }
+
+        void stop() {
+            server.stop(0);
+        }
+
+        // Every requested setid gets an empty set
+        private void serveSets(HttpExchange exchange) throws IOException {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            try {
+                TimeUnit.MILLISECONDS.sleep(delayMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                inFlight.decrementAndGet();
+            }
+            String ids = exchange.getRequestURI().getQuery().replace("ids=", "");
+            respond(exchange, "{" + Arrays.stream(ids.split("[,&]"))
+                    .map(id -> "\"" + id + "\":[]")
+                    .collect(Collectors.joining(",")) + "}");
+        }
+
+        private static void respond(HttpExchange exchange, String body) throws IOException {
+            byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        }
+    }
+}